@@ -0,0 +1,59 @@
+package com.edgar.jdbc.codegen.benchmark;
+
+import com.edgar.jdbc.codegen.db.DBFetcher;
+import com.edgar.jdbc.codegen.db.Table;
+import com.edgar.jdbc.codegen.gen.CodegenOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DBFetcher读取元数据的耗时.
+ * <p>
+ * 运行方式:先在根目录执行mvn install,然后执行mvn -f benchmarks/pom.xml package,
+ * 最后执行java -jar benchmarks/target/benchmarks.jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetadataFetchBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int tables;
+
+  @Param({"perTable", "bulk", "parallel"})
+  private String mode;
+
+  private CodegenOptions options;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    options = new SyntheticSchema(tables).create("fetch_" + tables + "_" + mode);
+    if ("bulk".equals(mode)) {
+      options.setBulkFetch(true);
+    } else if ("parallel".equals(mode)) {
+      options.setFetchParallelism(4);
+    }
+  }
+
+  @Benchmark
+  public List<Table> fetch() {
+    return new DBFetcher(options).fetchTablesFromDb();
+  }
+}
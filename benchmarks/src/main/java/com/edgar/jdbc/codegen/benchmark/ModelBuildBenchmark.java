@@ -0,0 +1,57 @@
+package com.edgar.jdbc.codegen.benchmark;
+
+import com.edgar.jdbc.codegen.db.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构建Table/Column模型以及模板中使用的派生属性的耗时.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModelBuildBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int tables;
+
+  private SyntheticSchema schema;
+
+  private List<Table> model;
+
+  @Setup
+  public void setUp() {
+    schema = new SyntheticSchema(tables);
+    model = schema.buildModel();
+  }
+
+  @Benchmark
+  public List<Table> build() {
+    return schema.buildModel();
+  }
+
+  @Benchmark
+  public void derivedProperties(Blackhole blackhole) {
+    for (Table table : model) {
+      blackhole.consume(table.getImports());
+      blackhole.consume(table.getFields());
+      blackhole.consume(table.getPkType());
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.edgar.jdbc.codegen.benchmark;
+
+import com.edgar.jdbc.codegen.db.Column;
+import com.edgar.jdbc.codegen.db.Table;
+import com.edgar.jdbc.codegen.gen.CodegenOptions;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用于基准测试的合成schema.
+ * <p>
+ * 每个表有一个自增主键和4到15个不同类型的字段，表和字段的结构由表的序号决定，多次创建的结果相同.
+ */
+public class SyntheticSchema {
+
+  private static final String[] SQL_TYPES = {"bigint", "int", "varchar(64)", "decimal(10,2)",
+          "double", "smallint", "boolean", "timestamp", "date", "clob"};
+
+  private static final int[] JDBC_TYPES = {Types.BIGINT, Types.INTEGER, Types.VARCHAR,
+          Types.DECIMAL, Types.DOUBLE, Types.SMALLINT, Types.BOOLEAN, Types.TIMESTAMP, Types.DATE,
+          Types.CLOB};
+
+  private static final int[] SIZES = {19, 10, 64, 10, 17, 5, 1, 26, 10, Integer.MAX_VALUE};
+
+  private final int tableCount;
+
+  public SyntheticSchema(int tableCount) {
+    this.tableCount = tableCount;
+  }
+
+  /**
+   * 在H2内存数据库中创建schema.
+   *
+   * @param name 数据库名称
+   * @return 指向该数据库的CodegenOptions，数据库在JVM退出前一直存在
+   */
+  public CodegenOptions create(String name) throws SQLException {
+    String url = "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    try (Connection conn = DriverManager.getConnection(url, "sa", "");
+         Statement stmt = conn.createStatement()) {
+      for (int i = 0; i < tableCount; i++) {
+        stmt.addBatch(createTableSql(i));
+      }
+      stmt.executeBatch();
+    }
+    return new CodegenOptions()
+            .setDriverClass("org.h2.Driver")
+            .setJdbcUrl(url)
+            .setUsername("sa")
+            .setPassword("");
+  }
+
+  /**
+   * 直接在内存中构建与DBFetcher读取结果相同的模型.
+   *
+   * @return 表
+   */
+  public List<Table> buildModel() {
+    List<Table> tables = new ArrayList<>(tableCount);
+    for (int i = 0; i < tableCount; i++) {
+      Table table = Table.create(tableName(i), "");
+      table.addColumn(Column.builder()
+                              .setName(pkName(i))
+                              .setType(Types.BIGINT)
+                              .setSize(19)
+                              .setNullable(false)
+                              .setAutoInc(true)
+                              .setPrimary(true)
+                              .setRemarks("")
+                              .build());
+      for (int c = 0; c < columnCount(i); c++) {
+        int type = (i + c) % SQL_TYPES.length;
+        table.addColumn(Column.builder()
+                                .setName(columnName(c))
+                                .setType(JDBC_TYPES[type])
+                                .setSize(SIZES[type])
+                                .setNullable(c % 3 != 0)
+                                .setRemarks("")
+                                .build());
+      }
+      tables.add(table);
+    }
+    return tables;
+  }
+
+  private String createTableSql(int i) {
+    StringBuilder sql = new StringBuilder("create table \"")
+            .append(tableName(i)).append("\" (\"")
+            .append(pkName(i)).append("\" bigint auto_increment primary key");
+    for (int c = 0; c < columnCount(i); c++) {
+      sql.append(", \"").append(columnName(c)).append("\" ")
+              .append(SQL_TYPES[(i + c) % SQL_TYPES.length]);
+      if (c % 3 == 0) {
+        sql.append(" not null");
+      }
+    }
+    return sql.append(")").toString();
+  }
+
+  private static String tableName(int i) {
+    return "bench_table_" + i;
+  }
+
+  private static String pkName(int i) {
+    return "bench_table_" + i + "_id";
+  }
+
+  private static String columnName(int c) {
+    return "column_" + c;
+  }
+
+  private static int columnCount(int i) {
+    return 4 + i % 12;
+  }
+}
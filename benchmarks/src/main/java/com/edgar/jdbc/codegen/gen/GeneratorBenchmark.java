@@ -0,0 +1,115 @@
+package com.edgar.jdbc.codegen.gen;
+
+import com.edgar.jdbc.codegen.benchmark.SyntheticSchema;
+import com.edgar.jdbc.codegen.db.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Generator各个阶段的耗时:模板渲染、读取已有文件中的用户代码、写文件.
+ * 渲染使用预先读取的用户代码，与读取用户代码分别计时.
+ * <p>
+ * 与Generator在同一个包中，直接测试各个阶段而不需要连接数据库.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratorBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int tables;
+
+  private Path srcFolder;
+
+  private Generator generator;
+
+  private List<Table> model;
+
+  private List<String> userSources;
+
+  private List<GeneratedFile> files;
+
+  private List<GeneratedFile> changedFiles;
+
+  private boolean changed;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    srcFolder = Files.createTempDirectory("codegen-bench");
+    generator = new Generator(new CodegenOptions()
+                                      .setSrcFolderPath(srcFolder.toString())
+                                      .setDomainPackage("com.edgar.bench.domain"));
+    model = new SyntheticSchema(tables).buildModel();
+    files = new ArrayList<>(tables * generator.getArtifactCount());
+    changedFiles = new ArrayList<>(tables * generator.getArtifactCount());
+    for (Table table : model) {
+      for (GeneratedFile file : generator.render(table)) {
+        files.add(file);
+        changedFiles.add(new GeneratedFile(table, file.getFileName(), file.getCode() + "\n"));
+        generator.write(file);
+      }
+    }
+    //渲染时使用预先读取的用户代码，不包含读文件的耗时
+    userSources = new ArrayList<>(tables);
+    for (Table table : model) {
+      userSources.add(generator.readUserSourceCode(table).toString());
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(srcFolder)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public void render(Blackhole blackhole) {
+    for (int i = 0; i < model.size(); i++) {
+      blackhole.consume(generator.render(model.get(i), userSources.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void readUserSourceCode(Blackhole blackhole) {
+    for (Table table : model) {
+      blackhole.consume(generator.readUserSourceCode(table));
+    }
+  }
+
+  @Benchmark
+  public void writeUnchanged() {
+    files.forEach(generator::write);
+  }
+
+  @Benchmark
+  public void writeChanged() {
+    List<GeneratedFile> next = changed ? files : changedFiles;
+    changed = !changed;
+    next.forEach(generator::write);
+  }
+}
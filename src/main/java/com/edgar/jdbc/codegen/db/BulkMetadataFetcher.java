@@ -0,0 +1,380 @@
+package com.edgar.jdbc.codegen.db;
+
+import com.edgar.jdbc.codegen.gen.CodegenListener;
+import com.edgar.jdbc.codegen.gen.CodegenOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 批量读取元数据.
+ * <p>
+ * 按表逐个调用getPrimaryKeys、getColumns、getIndexInfo在表很多时会产生大量的往返,这里用少量的集合查询一次性读取整个schema的表、字段、主键和索引,
+ * 然后在内存中组装Table/Column,结果与逐表读取一致.
+ * <p>
+ * MySQL直接查询INFORMATION_SCHEMA,其他数据库使用DatabaseMetaData并传入null的表名.
+ */
+class BulkMetadataFetcher {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkMetadataFetcher.class);
+
+  private static final String MYSQL_TABLES_SQL =
+          "SELECT TABLE_NAME, TABLE_COMMENT, CREATE_TIME, UPDATE_TIME "
+          + "FROM INFORMATION_SCHEMA.TABLES "
+          + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_TYPE = 'BASE TABLE'";
+
+  //COLUMN_SIZE的计算方式与Connector/J的DatabaseMetaDataUsingInfoSchema保持一致
+  private static final String MYSQL_COLUMNS_SQL =
+          "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, COLUMN_TYPE, COLUMN_DEFAULT, IS_NULLABLE, "
+          + "EXTRA, COLUMN_COMMENT, IFNULL(NUMERIC_SCALE, 0) AS DECIMAL_DIGITS, "
+          + "CASE WHEN LCASE(DATA_TYPE) = 'date' THEN 10 "
+          + "WHEN LCASE(DATA_TYPE) = 'time' THEN 8 "
+          + "WHEN LCASE(DATA_TYPE) = 'datetime' THEN 19 "
+          + "WHEN LCASE(DATA_TYPE) = 'timestamp' THEN 19 "
+          + "WHEN CHARACTER_MAXIMUM_LENGTH IS NULL THEN NUMERIC_PRECISION "
+          + "WHEN CHARACTER_MAXIMUM_LENGTH > 2147483647 THEN 2147483647 "
+          + "ELSE CHARACTER_MAXIMUM_LENGTH END AS COLUMN_SIZE "
+          + "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = DATABASE()";
+
+  private static final String MYSQL_INDEXES_SQL =
+          "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, SEQ_IN_INDEX, COLUMN_NAME, CARDINALITY "
+          + "FROM INFORMATION_SCHEMA.STATISTICS WHERE TABLE_SCHEMA = DATABASE()";
+
+  private static final String MYSQL_PRIMARY_INDEX = "PRIMARY";
+
+  private final DBFetcher fetcher;
+
+  private final CodegenOptions options;
+
+  private final CodegenListener listener;
+
+  private String identifierQuote;
+
+  BulkMetadataFetcher(DBFetcher fetcher, CodegenOptions options, CodegenListener listener) {
+    this.fetcher = fetcher;
+    this.options = options;
+    this.listener = listener;
+  }
+
+  /**
+   * 读取所有的表,按顺序交给consumer.
+   *
+   * @param conn     数据库连接
+   * @param consumer 接收读取完成的表
+   */
+  void fetch(Connection conn, Consumer<Table> consumer) throws SQLException {
+    DatabaseMetaData dbmd = conn.getMetaData();
+    identifierQuote = DBFetcher.identifierQuote(dbmd);
+    if ("MySQL".equalsIgnoreCase(dbmd.getDatabaseProductName())) {
+      fetchFromInformationSchema(conn, consumer);
+    } else {
+      fetchFromMetaData(dbmd, consumer);
+    }
+  }
+
+  private void fetchFromInformationSchema(Connection conn, Consumer<Table> consumer)
+          throws SQLException {
+    String tableNamePattern = options.getTableNamePattern();
+    Map<String, Table> tableMap = new LinkedHashMap<>();
+    long start = System.nanoTime();
+    try (PreparedStatement stmt = prepare(conn, MYSQL_TABLES_SQL + " ORDER BY TABLE_NAME",
+                                          tableNamePattern);
+         ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        String tableName = rs.getString("TABLE_NAME");
+        String remarks = rs.getString("TABLE_COMMENT");
+        LOGGER.info("Found {}:{}, {}", "TABLE", tableName, remarks);
+        Table table = Table.create(tableName, remarks);
+        table.setCreateTime(rs.getString("CREATE_TIME"));
+        table.setUpdateTime(rs.getString("UPDATE_TIME"));
+        tableMap.put(tableName, table);
+      }
+    }
+    listener.onMetadataQuery("tables", System.nanoTime() - start);
+
+    Map<String, Set<String>> pks = new HashMap<>();
+    Map<String, Map<String, Index>> indexes = new HashMap<>();
+    start = System.nanoTime();
+    try (PreparedStatement stmt = prepare(conn, MYSQL_INDEXES_SQL
+                                                + " ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX",
+                                          tableNamePattern);
+         ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        String tableName = rs.getString("TABLE_NAME");
+        String indexName = rs.getString("INDEX_NAME");
+        if (!tableMap.containsKey(tableName)) {
+          continue;
+        }
+        if (MYSQL_PRIMARY_INDEX.equals(indexName)) {
+          pks.computeIfAbsent(tableName, k -> new HashSet<>())
+                  .add(rs.getString("COLUMN_NAME").toLowerCase());
+        }
+        DBFetcher.addIndexColumn(indexes.computeIfAbsent(tableName, k -> new LinkedHashMap<>()),
+                                 indexName, rs.getInt("NON_UNIQUE") != 0,
+                                 rs.getString("COLUMN_NAME"), rs.getLong("CARDINALITY"));
+      }
+    }
+    listener.onMetadataQuery("indexes", System.nanoTime() - start);
+
+    Map<String, List<Column>> columns = new HashMap<>();
+    start = System.nanoTime();
+    try (PreparedStatement stmt = prepare(conn, MYSQL_COLUMNS_SQL + " ORDER BY TABLE_NAME, "
+                                                + "ORDINAL_POSITION", tableNamePattern);
+         ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        String tableName = rs.getString("TABLE_NAME");
+        if (!tableMap.containsKey(tableName)) {
+          continue;
+        }
+        Set<String> tablePks = pks.getOrDefault(tableName, new HashSet<>());
+        columns.computeIfAbsent(tableName, k -> new ArrayList<>())
+                .add(createMySqlColumn(rs, tablePks));
+      }
+    }
+    listener.onMetadataQuery("columns", System.nanoTime() - start);
+
+    for (Table table : tableMap.values()) {
+      addIndexes(table, indexes.get(table.getName()));
+      assemble(table, pks.get(table.getName()), columns.get(table.getName()), consumer);
+    }
+  }
+
+  private void fetchFromMetaData(DatabaseMetaData dbmd, Consumer<Table> consumer)
+          throws SQLException {
+    String tableNamePattern = options.getTableNamePattern();
+    Map<String, Table> tableMap = new LinkedHashMap<>();
+    long start = System.nanoTime();
+    try (ResultSet rs = dbmd.getTables(null, null, tableNamePattern, new String[]{"TABLE"})) {
+      while (rs.next()) {
+        String tableName = rs.getString("TABLE_NAME");
+        String tableType = rs.getString("TABLE_TYPE");
+        String remarks = rs.getString("REMARKS");
+        LOGGER.info("Found {}:{}, {}", tableType, tableName, remarks);
+        tableMap.put(key(rs), Table.create(tableName, remarks));
+      }
+    }
+    listener.onMetadataQuery("tables", System.nanoTime() - start);
+
+    //部分驱动不支持null的表名,此时没有任何返回,退回到逐表读取主键和索引
+    Map<String, Set<String>> pks = new HashMap<>();
+    start = System.nanoTime();
+    try (ResultSet rs = dbmd.getPrimaryKeys(null, null, null)) {
+      while (rs.next()) {
+        pks.computeIfAbsent(key(rs), k -> new HashSet<>())
+                .add(rs.getString("COLUMN_NAME").toLowerCase());
+      }
+    } catch (SQLException e) {
+      LOGGER.debug("Bulk getPrimaryKeys not supported:{}", e.getMessage());
+    }
+    listener.onMetadataQuery("keys", System.nanoTime() - start);
+    boolean bulkKeys = !pks.isEmpty();
+    if (bulkKeys) {
+      Map<String, Map<String, Index>> indexes = new HashMap<>();
+      start = System.nanoTime();
+      try (ResultSet rs = dbmd.getIndexInfo(null, null, null, false, true)) {
+        while (rs.next()) {
+          if (tableMap.containsKey(key(rs))
+              && rs.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic) {
+            DBFetcher.addIndexColumn(indexes.computeIfAbsent(key(rs), k -> new LinkedHashMap<>()),
+                                     rs.getString("INDEX_NAME"), rs.getBoolean("NON_UNIQUE"),
+                                     rs.getString("COLUMN_NAME"), rs.getLong("CARDINALITY"));
+          }
+        }
+      }
+      listener.onMetadataQuery("indexes", System.nanoTime() - start);
+      for (Map.Entry<String, Table> entry : tableMap.entrySet()) {
+        addIndexes(entry.getValue(), indexes.get(entry.getKey()));
+      }
+    } else {
+      LOGGER.info("Driver does not support bulk key lookups, falling back to per table");
+      for (Map.Entry<String, Table> entry : tableMap.entrySet()) {
+        long tableStart = System.nanoTime();
+        pks.put(entry.getKey(), fetchPrimaryKeys(dbmd, entry.getValue()));
+        long keysEnd = System.nanoTime();
+        fetcher.fetchIndexes(dbmd, entry.getValue());
+        listener.onTableFetched(entry.getValue().getName(), 0, keysEnd - tableStart,
+                                System.nanoTime() - keysEnd);
+      }
+    }
+
+    Map<String, List<Column>> columns = new HashMap<>();
+    start = System.nanoTime();
+    try (ResultSet rs = dbmd.getColumns(null, null, tableNamePattern, null)) {
+      while (rs.next()) {
+        String key = key(rs);
+        if (!tableMap.containsKey(key)) {
+          continue;
+        }
+        Set<String> tablePks = pks.getOrDefault(key, new HashSet<>());
+        columns.computeIfAbsent(key, k -> new ArrayList<>())
+                .add(fetcher.createColumn(rs, tablePks));
+      }
+    }
+    listener.onMetadataQuery("columns", System.nanoTime() - start);
+
+    for (Map.Entry<String, Table> entry : tableMap.entrySet()) {
+      assemble(entry.getValue(), pks.get(entry.getKey()), columns.get(entry.getKey()), consumer);
+    }
+  }
+
+  private void assemble(Table table, Set<String> pks, List<Column> columns,
+                        Consumer<Table> consumer) {
+    table.setIdentifierQuote(identifierQuote);
+    if (fetcher.ignoreTable(table.getName())) {
+      table.setIgnore(true);
+    }
+    int pkSize = pks == null ? 0 : pks.size();
+    if (pkSize != 1) {
+      LOGGER.error("should be only 1 pk,but:" + pkSize);
+      throw new RuntimeException("should be only 1 pk,but:" + pkSize);
+    }
+    if (columns != null) {
+      for (Column column : columns) {
+        table.addColumn(column);
+        LOGGER.debug("Found Column:" + column);
+      }
+    }
+    consumer.accept(table);
+  }
+
+  private void addIndexes(Table table, Map<String, Index> indexes) {
+    if (indexes != null) {
+      indexes.values().forEach(table::addIndex);
+    }
+  }
+
+  private Set<String> fetchPrimaryKeys(DatabaseMetaData dbmd, Table table) throws SQLException {
+    Set<String> pks = new HashSet<>();
+    try (ResultSet rs = dbmd.getPrimaryKeys(null, null, table.getName())) {
+      while (rs.next()) {
+        pks.add(rs.getString("COLUMN_NAME").toLowerCase());
+      }
+    }
+    return pks;
+  }
+
+  private Column createMySqlColumn(ResultSet rs, Set<String> pks) throws SQLException {
+    Column.ColumnBuilder builder = Column.builder();
+    String colName = rs.getString("COLUMN_NAME").toLowerCase();
+    builder.setName(colName);
+    builder.setRemarks(rs.getString("COLUMN_COMMENT").toLowerCase());
+    builder.setPrimary(pks.contains(colName));
+    builder.setSize(rs.getInt("COLUMN_SIZE"));
+    builder.setDefaultValue(rs.getString("COLUMN_DEFAULT"));
+    builder.setNullable("YES".equalsIgnoreCase(rs.getString("IS_NULLABLE")));
+    String extra = rs.getString("EXTRA");
+    builder.setAutoInc(extra != null && extra.toLowerCase().contains("auto_increment"));
+    String columnType = rs.getString("COLUMN_TYPE");
+    int type = mysqlToJdbcType(rs.getString("DATA_TYPE"), columnType);
+    builder.setType(type);
+    builder.setDecimalDigits(rs.getInt("DECIMAL_DIGITS"));
+    builder.setParameterType(options.getTypeMapping()
+                                     .resolve(rs.getString("TABLE_NAME"), colName, type,
+                                              rs.getInt("COLUMN_SIZE"),
+                                              rs.getInt("DECIMAL_DIGITS"),
+                                              columnType != null && columnType.toLowerCase()
+                                                      .contains("unsigned")));
+    builder.setIgnore(fetcher.ignoreColumn(colName));
+    return builder.build();
+  }
+
+  private PreparedStatement prepare(Connection conn, String sql, String tableNamePattern)
+          throws SQLException {
+    if (tableNamePattern == null) {
+      return conn.prepareStatement(sql);
+    }
+    int orderBy = sql.indexOf(" ORDER BY ");
+    String filtered = orderBy == -1
+            ? sql + " AND TABLE_NAME LIKE ?"
+            : sql.substring(0, orderBy) + " AND TABLE_NAME LIKE ?" + sql.substring(orderBy);
+    PreparedStatement stmt = conn.prepareStatement(filtered);
+    stmt.setString(1, tableNamePattern);
+    return stmt;
+  }
+
+  private static String key(ResultSet rs) throws SQLException {
+    return rs.getString("TABLE_CAT") + "." + rs.getString("TABLE_SCHEM") + "."
+           + rs.getString("TABLE_NAME");
+  }
+
+  /**
+   * 将INFORMATION_SCHEMA.COLUMNS的DATA_TYPE转换为java.sql.Types,与Connector/J的getColumns一致.
+   *
+   * @param dataType   DATA_TYPE
+   * @param columnType COLUMN_TYPE
+   * @return java.sql.Types
+   */
+  static int mysqlToJdbcType(String dataType, String columnType) {
+    switch (dataType.toLowerCase()) {
+      case "bit":
+        return Types.BIT;
+      case "tinyint":
+        //tinyInt1isBit
+        return columnType != null && columnType.toLowerCase().startsWith("tinyint(1)")
+                ? Types.BIT : Types.TINYINT;
+      case "bool":
+      case "boolean":
+        return Types.BIT;
+      case "smallint":
+        return Types.SMALLINT;
+      case "mediumint":
+      case "int":
+      case "integer":
+        return Types.INTEGER;
+      case "bigint":
+        return Types.BIGINT;
+      case "float":
+        return Types.REAL;
+      case "double":
+      case "real":
+        return Types.DOUBLE;
+      case "decimal":
+      case "numeric":
+        return Types.DECIMAL;
+      case "date":
+      case "year":
+        return Types.DATE;
+      case "time":
+        return Types.TIME;
+      case "datetime":
+      case "timestamp":
+        return Types.TIMESTAMP;
+      case "char":
+      case "enum":
+      case "set":
+        return Types.CHAR;
+      case "varchar":
+        return Types.VARCHAR;
+      case "tinytext":
+      case "text":
+      case "mediumtext":
+      case "longtext":
+      case "json":
+        return Types.LONGVARCHAR;
+      case "binary":
+        return Types.BINARY;
+      case "varbinary":
+        return Types.VARBINARY;
+      case "tinyblob":
+      case "blob":
+      case "mediumblob":
+      case "longblob":
+        return Types.LONGVARBINARY;
+      default:
+        return Types.OTHER;
+    }
+  }
+}
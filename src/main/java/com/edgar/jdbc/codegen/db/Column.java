@@ -2,8 +2,6 @@ package com.edgar.jdbc.codegen.db;
 
 import com.google.common.base.CaseFormat;
 
-import java.sql.Types;
-
 /**
  * 数据库的字段.
  *
@@ -53,6 +51,16 @@ public class Column {
 
   private final int type;
 
+  /**
+   * 小数位数
+   */
+  private final int decimalDigits;
+
+  /**
+   * Java类型，由TypeMapping决定，为null时使用legacy映射
+   */
+  private final ParameterType parameterType;
+
   private final String remarks;
 
   private Column(String name, int size, String defaultValue, boolean isNullable,
@@ -61,6 +69,8 @@ public class Column {
                  boolean isPrimary,
                  boolean isVersion,
                  int type,
+                 int decimalDigits,
+                 ParameterType parameterType,
                  String remarks) {
     this.name = name;
     this.size = size;
@@ -71,6 +81,8 @@ public class Column {
     this.isPrimary = isPrimary;
     this.isVersion = isVersion;
     this.type = type;
+    this.decimalDigits = decimalDigits;
+    this.parameterType = parameterType;
     this.remarks = remarks;
   }
 
@@ -114,6 +126,10 @@ public class Column {
     return type;
   }
 
+  public int getDecimalDigits() {
+    return decimalDigits;
+  }
+
   public String getRemarks() {
     return remarks;
   }
@@ -138,34 +154,14 @@ public class Column {
            ", isVersion=" + isVersion +
            ", isPrimary=" + isPrimary +
            ", type=" + type +
+           ", decimalDigits=" + decimalDigits +
+           ", parameterType=" + getParameterType() +
            ", remarks=" + remarks +
            '}';
   }
 
   public ParameterType getParameterType() {
-    ParameterType parameter;
-    if ((type == Types.VARCHAR) || (type == Types.LONGVARCHAR) || (type == Types.CLOB)) {
-      parameter = ParameterType.STRING;
-    } else if (type == Types.BIGINT) {
-      parameter = ParameterType.LONG;
-    } else if ((type == Types.DOUBLE) || (type == Types.NUMERIC)) {
-      parameter = ParameterType.BIGDECIMAL;
-    } else if ((type == Types.FLOAT) || (type == Types.DECIMAL)) {
-      parameter = ParameterType.BIGDECIMAL;
-    } else if ((type == Types.INTEGER) || (type == Types.SMALLINT) || (type
-                                                                             == Types.TINYINT)) {
-      parameter = ParameterType.INTEGER;
-    } else if ((type == Types.TIMESTAMP) || (type == Types.TIME) || (type == Types.DATE)) {
-      parameter = ParameterType.DATE;
-    } else if ((type == Types.BIT) || (type == Types.BOOLEAN)) {
-      parameter = ParameterType.BOOLEAN;
-    } else if (type == Types.CHAR) {
-      parameter = ParameterType.STRING;
-    } else {
-      // no specific type found so set to generic object
-      parameter = ParameterType.OBJECT;
-    }
-    return parameter;
+    return parameterType == null ? TypeMapping.legacyType(type) : parameterType;
   }
 
   public static class ColumnBuilder {
@@ -187,6 +183,10 @@ public class Column {
 
     private int type;
 
+    private int decimalDigits;
+
+    private ParameterType parameterType;
+
     private String remarks;
 
     private ColumnBuilder() {
@@ -206,6 +206,16 @@ public class Column {
       return this;
     }
 
+    public ColumnBuilder setDecimalDigits(int decimalDigits) {
+      this.decimalDigits = decimalDigits;
+      return this;
+    }
+
+    public ColumnBuilder setParameterType(ParameterType parameterType) {
+      this.parameterType = parameterType;
+      return this;
+    }
+
     public ColumnBuilder setName(String name) {
       this.name = name;
       return this;
@@ -248,7 +258,7 @@ public class Column {
 
     public Column build() {
       return new Column(name, size, defaultValue, isNullable, isAutoInc, isIgnore, isPrimary,
-                        isVersion, type, remarks);
+                        isVersion, type, decimalDigits, parameterType, remarks);
     }
   }
 }
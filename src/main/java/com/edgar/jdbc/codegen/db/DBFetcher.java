@@ -1,6 +1,11 @@
 package com.edgar.jdbc.codegen.db;
 
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+
+import com.edgar.jdbc.codegen.gen.CodegenListener;
 import com.edgar.jdbc.codegen.gen.CodegenOptions;
+import com.edgar.jdbc.codegen.gen.CompositeCodegenListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,11 +14,23 @@ import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Created by Edgar on 2017/5/17.
@@ -23,59 +40,233 @@ import java.util.Set;
 public class DBFetcher {
   private static final Logger LOGGER = LoggerFactory.getLogger(DBFetcher.class);
 
+  private static final String TABLE_TIMES_SQL =
+          "SELECT TABLE_NAME, CREATE_TIME, UPDATE_TIME FROM INFORMATION_SCHEMA.TABLES "
+          + "WHERE TABLE_SCHEMA = DATABASE()";
+
   private final CodegenOptions options;
 
-  public DBFetcher(CodegenOptions options) {this.options = options;}
+  private final CodegenListener listener;
+
+  private boolean complete;
+
+  public DBFetcher(CodegenOptions options) {
+    this(options, new CompositeCodegenListener(options.getListeners()));
+  }
+
+  public DBFetcher(CodegenOptions options, CodegenListener listener) {
+    this.options = options;
+    this.listener = listener;
+  }
 
   public List<Table> fetchTablesFromDb() {
     List<Table> tables = new ArrayList<>();
+    fetchTablesFromDb(tables::add);
+    return tables;
+  }
+
+  /**
+   * 读取表，每个表的元数据读取完成后立即交给consumer，不需要等待所有的表读取完成.
+   * consumer按照表的顺序在调用线程中被调用.
+   * 读取出错时只记录日志，isComplete返回false；consumer抛出的异常在关闭连接后重新抛出.
+   *
+   * @param consumer 接收读取完成的表
+   */
+  public void fetchTablesFromDb(Consumer<Table> consumer) {
+    complete = false;
     Connection conn = null;
+    Consumer<Table> guarded = table -> {
+      try {
+        consumer.accept(table);
+      } catch (RuntimeException e) {
+        throw new ConsumerFailure(e);
+      }
+    };
     try {
       conn = this.getConnection();
-      DatabaseMetaData dbmd = conn.getMetaData();
-      printSchemasInfo(dbmd);
+      if (Strings.isNullOrEmpty(options.getSnapshotDir())) {
+        fetchTables(conn, guarded);
+      } else {
+        SchemaSnapshot snapshot = new SchemaSnapshot(options);
+        long start = System.nanoTime();
+        String fingerprint = snapshot.fingerprint(conn);
+        listener.onMetadataQuery("fingerprint", System.nanoTime() - start);
+        List<Table> cached = snapshot.load(fingerprint);
+        if (cached != null) {
+          cached.forEach(guarded);
+          complete = true;
+          return;
+        }
+        List<Table> tables = new ArrayList<>();
+        fetchTables(conn, guarded.andThen(tables::add));
+        snapshot.save(fingerprint, tables);
+      }
+      complete = true;
+    } catch (ConsumerFailure e) {
+      throw (RuntimeException) e.getCause();
+    } catch (Exception e) {
+      LOGGER.error("Error occcured during code generation." + e);
+      e.printStackTrace();
+    } finally {
+      if (conn != null) {
+        try {
+          conn.close();
+        } catch (Exception e) {
+          LOGGER.warn("Error closing db connection.{}", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * 包装consumer抛出的异常，与读取数据库的异常区分.
+   */
+  private static final class ConsumerFailure extends RuntimeException {
+    private ConsumerFailure(RuntimeException cause) {
+      super(cause);
+    }
+  }
+
+  /**
+   * 最近一次fetchTablesFromDb是否完整的读取了所有的表，读取出错时只会返回部分表.
+   *
+   * @return true:完整读取
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  private void fetchTables(Connection conn, Consumer<Table> consumer) throws Exception {
+    List<Table> pending = new ArrayList<>();
+    DatabaseMetaData dbmd = conn.getMetaData();
+    if (options.isBulkFetch()) {
       printDBinfo(dbmd);
+      new BulkMetadataFetcher(this, options, listener).fetch(conn, consumer);
+      return;
+    }
+    printSchemasInfo(dbmd);
+    printDBinfo(dbmd);
 
-      if (dbmd != null) {
-        /**
-         * 读取table
-         * 获取给定类别中使用的表的描述。
-         * 方法原型:ResultSet getTables(String catalog,String schemaPattern,String tableNamePattern,
-         * String[] types);
-         * catalog - 表所在的类别名称;""表示获取没有类别的列,null表示获取所有类别的列。
-         * schema - 表所在的模式名称(oracle中对应于Tablespace);""表示获取没有模式的列,null标识获取所有模式的列; 可包含单字符通配符("_"),
-         * 或多字符通配符("%");
-         * tableNamePattern - 表名称;可包含单字符通配符("_"),或多字符通配符("%");
-         * types - 表类型数组; "TABLE"、"VIEW"、"SYSTEM TABLE"、"GLOBAL TEMPORARY"、"LOCAL
-         * TEMPORARY"、"ALIAS" 和 "SYNONYM";null表示包含所有的表类型;可包含单字符通配符("_"),或多字符通配符("%");
-         */
-        ResultSet rset =
-                dbmd.getTables(null, null, options.getTableNamePattern(), new String[]{"TABLE"});
-        while (rset.next()) {
+    if (dbmd != null) {
+      /**
+       * 读取table
+       * 获取给定类别中使用的表的描述。
+       * 方法原型:ResultSet getTables(String catalog,String schemaPattern,String tableNamePattern,
+       * String[] types);
+       * catalog - 表所在的类别名称;""表示获取没有类别的列,null表示获取所有类别的列。
+       * schema - 表所在的模式名称(oracle中对应于Tablespace);""表示获取没有模式的列,null标识获取所有模式的列; 可包含单字符通配符("_"),
+       * 或多字符通配符("%");
+       * tableNamePattern - 表名称;可包含单字符通配符("_"),或多字符通配符("%");
+       * types - 表类型数组; "TABLE"、"VIEW"、"SYSTEM TABLE"、"GLOBAL TEMPORARY"、"LOCAL
+       * TEMPORARY"、"ALIAS" 和 "SYNONYM";null表示包含所有的表类型;可包含单字符通配符("_"),或多字符通配符("%");
+       */
+      Map<String, String[]> tableTimes =
+              options.isIncremental() ? fetchTableTimes(conn) : new HashMap<>();
+      String identifierQuote = identifierQuote(dbmd);
+      ResultSet rset =
+              dbmd.getTables(null, null, options.getTableNamePattern(), new String[]{"TABLE"});
+      while (rset.next()) {
 //TABLE_CAT表类别(可为null)
 //TABLE_SCHEM 表模式（可能为空）
 //  TABLE_NAME表名
 //  TABLE_TYPE表类型,典型的类型是 "TABLE"、"VIEW"、"SYSTEM TABLE"、"GLOBAL TEMPORARY"、"LOCAL
 // TEMPORARY"、"ALIAS" 和 "SYNONYM"。
 //  REMARKS表备注
-          String tableName = rset.getString("TABLE_NAME");
-          String tableType = rset.getString("TABLE_TYPE");
-          String remarks = rset.getString("REMARKS");
-          LOGGER.info("Found {}:{}, {}", tableType, tableName, remarks);
-          Table table = Table.create(tableName, remarks);
-          if (ignoreTable(tableName)) {
-            table.setIgnore(true);
+        String tableName = rset.getString("TABLE_NAME");
+        String tableType = rset.getString("TABLE_TYPE");
+        String remarks = rset.getString("REMARKS");
+        LOGGER.info("Found {}:{}, {}", tableType, tableName, remarks);
+        Table table = Table.create(tableName, remarks);
+        table.setIdentifierQuote(identifierQuote);
+        if (ignoreTable(tableName)) {
+          table.setIgnore(true);
+        }
+        if (tableTimes.containsKey(tableName)) {
+          table.setCreateTime(tableTimes.get(tableName)[0]);
+          table.setUpdateTime(tableTimes.get(tableName)[1]);
+        }
+        if (options.getFetchParallelism() > 1) {
+          pending.add(table);
+          continue;
+        }
+        fetchTable(dbmd, table);
+        consumer.accept(table);
+      }
+      if (!pending.isEmpty()) {
+        fetchInParallel(pending, consumer);
+      }
+    }
+  }
+
+  /**
+   * 读取表的创建时间和修改时间,只有MySQL支持.
+   *
+   * @param conn 数据库连接
+   * @return 表名 - [创建时间, 修改时间]
+   */
+  private Map<String, String[]> fetchTableTimes(Connection conn) throws SQLException {
+    Map<String, String[]> tableTimes = new HashMap<>();
+    if (!"MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName())) {
+      return tableTimes;
+    }
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery(TABLE_TIMES_SQL)) {
+      while (rs.next()) {
+        tableTimes.put(rs.getString("TABLE_NAME"),
+                       new String[]{rs.getString("CREATE_TIME"), rs.getString("UPDATE_TIME")});
+      }
+    }
+    return tableTimes;
+  }
+
+  /**
+   * 使用多个连接并行读取每个表的字段和索引，结果按照pending的顺序交给consumer.
+   *
+   * @param pending  需要读取字段的表
+   * @param consumer 接收读取完成的表
+   */
+  private void fetchInParallel(List<Table> pending, Consumer<Table> consumer) throws Exception {
+    int parallelism = Math.min(options.getFetchParallelism(), pending.size());
+    LOGGER.info("Fetching {} tables with {} connections", pending.size(), parallelism);
+    BlockingQueue<Connection> connections = new ArrayBlockingQueue<>(parallelism);
+    //正在读取的线程持有的连接不在队列中，关闭时使用opened
+    List<Connection> opened = new ArrayList<>(parallelism);
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      for (int i = 0; i < parallelism; i++) {
+        Connection conn = getConnection();
+        opened.add(conn);
+        connections.add(conn);
+      }
+      List<Future<Table>> futures = new ArrayList<>(pending.size());
+      for (Table table : pending) {
+        futures.add(executor.submit(() -> {
+          Connection conn = connections.take();
+          try {
+            return fetchTable(conn.getMetaData(), table);
+          } finally {
+            connections.put(conn);
           }
-          printIndexInfo(dbmd, table);
-          fetchColumns(dbmd, table);
-          tables.add(table);
+        }));
+      }
+      for (Future<Table> future : futures) {
+        try {
+          consumer.accept(future.get());
+        } catch (ExecutionException e) {
+          Throwables.throwIfUnchecked(e.getCause());
+          throw (Exception) e.getCause();
         }
       }
-    } catch (Exception e) {
-      LOGGER.error("Error occcured during code generation." + e);
-      e.printStackTrace();
     } finally {
-      if (conn != null) {
+      executor.shutdownNow();
+      try {
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          LOGGER.warn("Fetch threads did not terminate, closing their connections");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      for (Connection conn : opened) {
         try {
           conn.close();
         } catch (Exception e) {
@@ -83,7 +274,6 @@ public class DBFetcher {
         }
       }
     }
-    return tables;
   }
 
   private void printDBinfo(DatabaseMetaData dbmd) throws SQLException {
@@ -98,6 +288,7 @@ public class DBFetcher {
   }
 
   private Connection getConnection() throws SQLException {
+    long start = System.nanoTime();
     Connection conn;
     String userName = options.getUsername();
     String password = options.getPassword();
@@ -116,10 +307,30 @@ public class DBFetcher {
       conn = DriverManager.getConnection(options.getJdbcUrl(), connProps);
     }
     LOGGER.info("Connected to database");
+    listener.onConnect(System.nanoTime() - start);
     return conn;
   }
 
-  private Table fetchColumns(DatabaseMetaData metaData, Table table) throws
+  /**
+   * 读取一个表的索引、主键和字段.
+   *
+   * @param dbmd  DatabaseMetaData
+   * @param table 表
+   * @return 表
+   */
+  private Table fetchTable(DatabaseMetaData dbmd, Table table) throws Exception {
+    long start = System.nanoTime();
+    fetchIndexes(dbmd, table);
+    long indexesEnd = System.nanoTime();
+    Set<String> pks = fetchPrimaryKeys(dbmd, table);
+    long keysEnd = System.nanoTime();
+    fetchColumns(dbmd, table, pks);
+    listener.onTableFetched(table.getName(), System.nanoTime() - keysEnd, keysEnd - indexesEnd,
+                            indexesEnd - start);
+    return table;
+  }
+
+  private Set<String> fetchPrimaryKeys(DatabaseMetaData metaData, Table table) throws
           Exception {
 
     Set<String> pks = new HashSet<>();
@@ -150,7 +361,11 @@ public class DBFetcher {
       LOGGER.error("should be only 1 pk,but:" + pks.size());
       throw new RuntimeException("should be only 1 pk,but:" + pks.size());
     }
+    return pks;
+  }
 
+  private Table fetchColumns(DatabaseMetaData metaData, Table table, Set<String> pks) throws
+          Exception {
     /**
      * 字段
      * 获取可在指定类别中使用的表列的描述。
@@ -171,7 +386,7 @@ public class DBFetcher {
     return table;
   }
 
-  private Column createColumn(ResultSet cset, Set<String> pks) throws SQLException {
+  Column createColumn(ResultSet cset, Set<String> pks) throws SQLException {
     Column.ColumnBuilder builder = Column.builder();
 
     /**
@@ -240,6 +455,15 @@ public class DBFetcher {
     int type = cset.getInt("DATA_TYPE");
     builder.setType(type);
 
+    int decimalDigits = cset.getInt("DECIMAL_DIGITS");
+    builder.setDecimalDigits(decimalDigits);
+    //Connector/J的TYPE_NAME带有UNSIGNED，例如INT UNSIGNED
+    String typeName = cset.getString("TYPE_NAME");
+    builder.setParameterType(options.getTypeMapping()
+                                     .resolve(cset.getString("TABLE_NAME"), colName, type, colSize,
+                                              decimalDigits, typeName != null && typeName
+                                                      .toUpperCase().contains("UNSIGNED")));
+
     //属性、方法
     if (ignoreColumn(colName)) {
       builder.setIgnore(true);
@@ -247,7 +471,7 @@ public class DBFetcher {
     return builder.build();
   }
 
-  private boolean ignoreColumn(String tableName) {
+  boolean ignoreColumn(String tableName) {
     // first do a actual match
     if (this.options.getIgnoreColumnList().contains(tableName.toLowerCase())) {
       return true;
@@ -255,7 +479,7 @@ public class DBFetcher {
     return false;
   }
 
-  private boolean ignoreTable(String tableName) {
+  boolean ignoreTable(String tableName) {
     // first do a actual match
     if (this.options.getIgnoreTableList().contains(tableName.toLowerCase())) {
       return true;
@@ -284,7 +508,7 @@ public class DBFetcher {
     }
   }
 
-  private void printIndexInfo(DatabaseMetaData dbmd, Table table) throws Exception {
+  void fetchIndexes(DatabaseMetaData dbmd, Table table) throws SQLException {
     /**
      * 获取给定表的索引和统计信息的描述
      * 方法原型:ResultSet getIndexInfo(String catalog,String schema,String table,boolean unique,
@@ -296,6 +520,7 @@ public class DBFetcher {
      * unique - 该参数为 true时,仅返回唯一值的索引; 该参数为 false时,返回所有索引;
      * approximate - 该参数为true时,允许结果是接近的数据值或这些数据值以外的值;该参数为 false时,要求结果是精确结果;
      */
+    Map<String, Index> indexes = new LinkedHashMap<>();
     ResultSet rs = dbmd.getIndexInfo(null, null, table.getName(), false, true);
     while (rs.next()) {
       String tableCat = rs.getString("TABLE_CAT");  //表类别(可为null)
@@ -325,9 +550,39 @@ public class DBFetcher {
       int pages = rs.getInt("PAGES"); //TYPE为 tableIndexStatisic时,它是用于表的页数,否则它是用于当前索引的页数。
       String filterCondition = rs.getString("FILTER_CONDITION"); //过滤器条件,如果有的话(可能为 null)。
 
-      LOGGER.info("Index name:{}", indexName);
-      LOGGER.info("Index NON_UNIQUE:{}", nonUnique);
+      if (type != DatabaseMetaData.tableIndexStatistic) {
+        addIndexColumn(indexes, indexName, nonUnique, columnName, cardinality);
+      }
+    }
+    indexes.values().forEach(table::addIndex);
+  }
+
+  /**
+   * 生成的SQL中引用表名和列名的字符.
+   * <p>
+   * 列名已经转换为小写，数据库把未引用的名称保存为大写时（例如Oracle、H2）引用后反而找不到列，此时不引用.
+   *
+   * @return 数据库不支持引用时返回空字符串
+   */
+  static String identifierQuote(DatabaseMetaData dbmd) throws SQLException {
+    String quote = dbmd.getIdentifierQuoteString();
+    if (quote == null || quote.trim().isEmpty() || dbmd.storesUpperCaseIdentifiers()) {
+      return "";
+    }
+    return quote.trim();
+  }
 
+  /**
+   * 将getIndexInfo或者INFORMATION_SCHEMA.STATISTICS的一行加入对应的索引，行需要按照列在索引中的顺序.
+   */
+  static void addIndexColumn(Map<String, Index> indexes, String indexName, boolean nonUnique,
+                             String columnName, long cardinality) {
+    if (indexName == null || columnName == null) {
+      return;
     }
+    Index index = indexes.computeIfAbsent(indexName, k -> Index.create(k, !nonUnique));
+    index.addColumn(columnName.toLowerCase());
+    index.setCardinality(Math.max(index.getCardinality(), cardinality));
+    LOGGER.debug("Index name:{}, NON_UNIQUE:{}, column:{}", indexName, nonUnique, columnName);
   }
 }
@@ -0,0 +1,61 @@
+package com.edgar.jdbc.codegen.db;
+
+import com.google.common.base.Joiner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 按照索引前缀列等值查询的finder.
+ */
+public class Finder {
+
+  private final Table table;
+
+  private final String indexName;
+
+  private final List<Column> columns;
+
+  /**
+   * 列覆盖了唯一索引的所有列，最多返回一行
+   */
+  private final boolean unique;
+
+  Finder(Table table, String indexName, List<Column> columns, boolean unique) {
+    this.table = table;
+    this.indexName = indexName;
+    this.columns = columns;
+    this.unique = unique;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  public boolean isUnique() {
+    return unique;
+  }
+
+  /**
+   * @return 由列名组成的名称，例如TenantIdAndCode
+   */
+  public String getUpperCamelName() {
+    return Joiner.on("And").join(columns.stream()
+                                         .map(Column::getUpperCamelName)
+                                         .collect(Collectors.toList()));
+  }
+
+  /**
+   * @return SELECT语句，参数顺序与getColumns相同
+   */
+  public String getSql() {
+    return "SELECT " + table.getColumnList() + " FROM " + table.quote(table.getName())
+           + " WHERE " + Joiner.on(" AND ").join(columns.stream()
+                                                         .map(c -> table.quote(c.getName()) + " = ?")
+                                                         .collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,70 @@
+package com.edgar.jdbc.codegen.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据表的索引.
+ */
+public class Index {
+
+  private final String name;
+
+  /**
+   * 是否是唯一索引
+   */
+  private final boolean unique;
+
+  /**
+   * 索引的列，按照在索引中的顺序
+   */
+  private final List<String> columns = new ArrayList<>();
+
+  /**
+   * 基数，索引中不同值的数量的估计值
+   */
+  private long cardinality;
+
+  private Index(String name, boolean unique) {
+    this.name = name;
+    this.unique = unique;
+  }
+
+  public static Index create(String name, boolean unique) {
+    return new Index(name, unique);
+  }
+
+  public void addColumn(String column) {
+    columns.add(column);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public boolean isUnique() {
+    return unique;
+  }
+
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  public long getCardinality() {
+    return cardinality;
+  }
+
+  public void setCardinality(long cardinality) {
+    this.cardinality = cardinality;
+  }
+
+  @Override
+  public String toString() {
+    return "Index{" +
+           "name='" + name + '\'' +
+           ", unique=" + unique +
+           ", columns=" + columns +
+           ", cardinality=" + cardinality +
+           '}';
+  }
+}
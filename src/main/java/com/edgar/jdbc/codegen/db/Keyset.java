@@ -0,0 +1,90 @@
+package com.edgar.jdbc.codegen.db;
+
+import com.google.common.base.Joiner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 用于keyset分页的一组唯一且不为null的列：主键或者唯一索引.
+ * <p>
+ * 下一页的条件展开为 a &gt; ? OR (a = ? AND b &gt; ?)，不使用行构造器比较，保证MySQL能够使用索引.
+ */
+public class Keyset {
+
+  private final Table table;
+
+  private final List<Column> columns;
+
+  Keyset(Table table, List<Column> columns) {
+    this.table = table;
+    this.columns = columns;
+  }
+
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  public Column getFirstColumn() {
+    return columns.get(0);
+  }
+
+  /**
+   * @return 由列名组成的名称，例如TenantIdAndCode
+   */
+  public String getUpperCamelName() {
+    return Joiner.on("And").join(columns.stream()
+                                         .map(Column::getUpperCamelName)
+                                         .collect(Collectors.toList()));
+  }
+
+  /**
+   * @return 第一页的SELECT语句，唯一的参数是LIMIT
+   */
+  public String getFirstPageSql() {
+    return "SELECT " + table.getColumnList() + " FROM " + table.quote(table.getName())
+           + " ORDER BY " + getOrderBy() + " LIMIT ?";
+  }
+
+  /**
+   * @return 下一页的SELECT语句，参数对应的列由getParamIndexes给出，最后一个参数是LIMIT
+   */
+  public String getNextPageSql() {
+    List<String> conditions = new ArrayList<>();
+    for (int i = 0; i < columns.size(); i++) {
+      StringBuilder condition = new StringBuilder();
+      for (int j = 0; j < i; j++) {
+        condition.append(quote(columns.get(j))).append(" = ? AND ");
+      }
+      condition.append(quote(columns.get(i))).append(" > ?");
+      conditions.add(i == 0 ? condition.toString() : "(" + condition + ")");
+    }
+    return "SELECT " + table.getColumnList() + " FROM " + table.quote(table.getName())
+           + " WHERE " + Joiner.on(" OR ").join(conditions) + " ORDER BY " + getOrderBy()
+           + " LIMIT ?";
+  }
+
+  /**
+   * @return 下一页的SQL中每个参数对应的列在getColumns中的序号，逗号分隔
+   */
+  public String getParamIndexes() {
+    List<Integer> indexes = new ArrayList<>();
+    for (int i = 0; i < columns.size(); i++) {
+      for (int j = 0; j <= i; j++) {
+        indexes.add(j);
+      }
+    }
+    return Joiner.on(", ").join(indexes);
+  }
+
+  private String getOrderBy() {
+    return Joiner.on(", ").join(columns.stream()
+                                        .map(this::quote)
+                                        .collect(Collectors.toList()));
+  }
+
+  private String quote(Column column) {
+    return table.quote(column.getName());
+  }
+}
@@ -1,18 +1,23 @@
 package com.edgar.jdbc.codegen.db;
 
 public enum ParameterType {
-  OBJECT("Object", "Object", false),
-  STRING("String", "String", false),
-  BOOLEAN("Boolean", "boolean", true),
-  DATE("Date", "Date", false),
-  TIMESTAMP("Timestamp", "Timestamp", false),
-  LONG("Long", "long", true),
-  INTEGER("Integer", "int", true),
-  FLOAT("Float", "float", true),
-  BIGDECIMAL("BigDecimal", "BigDecimal", true),
-  DOUBLE("Double", "double", true),
-  CHAR("Character", "char", true),
-  LIST("List", "List", false);
+  OBJECT("Object", "Object", false, "getObject", "Object"),
+  STRING("String", "String", false, "getString", "String"),
+  BOOLEAN("Boolean", "boolean", true, "getBoolean", "boolean"),
+  DATE("Date", "Date", false, "getTimestamp", "long"),
+  TIMESTAMP("Timestamp", "Timestamp", false, "getTimestamp", "long"),
+  LONG("Long", "long", true, "getLong", "long"),
+  INTEGER("Integer", "int", true, "getInt", "int"),
+  FLOAT("Float", "float", true, "getFloat", "float"),
+  BIGDECIMAL("BigDecimal", "BigDecimal", false, "getBigDecimal", "BigDecimal"),
+  DOUBLE("Double", "double", true, "getDouble", "double"),
+  CHAR("Character", "char", true, "getString", "String"),
+  LIST("List", "List", false, "getObject", "Object"),
+  SHORT("Short", "short", true, "getShort", "short"),
+  BYTE("Byte", "byte", true, "getByte", "byte"),
+  INSTANT("Instant", "Instant", false, "getTimestamp", "long"),
+  LOCALDATE("LocalDate", "LocalDate", false, "getDate", "long"),
+  BYTES("byte[]", "byte[]", false, "getBytes", "byte[]");
 
   private String name;
 
@@ -20,10 +25,23 @@ public enum ParameterType {
 
   private boolean isPrimitive;
 
-  private ParameterType(String name, String primitiveName, boolean isPrimitive) {
+  /**
+   * 读取ResultSet使用的方法
+   */
+  private String resultSetGetter;
+
+  /**
+   * 列式批量容器中数组元素的类型，日期和时间保存为毫秒数
+   */
+  private String batchType;
+
+  private ParameterType(String name, String primitiveName, boolean isPrimitive,
+                        String resultSetGetter, String batchType) {
     this.name = name;
     this.primitiveName = primitiveName;
     this.isPrimitive = isPrimitive;
+    this.resultSetGetter = resultSetGetter;
+    this.batchType = batchType;
 
   }
 
@@ -43,6 +61,186 @@ public enum ParameterType {
     this.primitiveName = primitiveName;
   }
 
+  public String getResultSetGetter() {
+    return resultSetGetter;
+  }
+
+  public String getBatchType() {
+    return batchType;
+  }
+
+  /**
+   * @return 列式批量容器中使用基本类型的数组，null需要单独记录
+   */
+  public boolean isBatchPrimitive() {
+    return Character.isLowerCase(batchType.charAt(0)) && !batchType.endsWith("[]");
+  }
+
+  /**
+   * @return 列式批量容器中以毫秒数保存的日期和时间
+   */
+  public boolean isBatchTemporal() {
+    return this == DATE || this == TIMESTAMP || this == INSTANT || this == LOCALDATE;
+  }
+
+  /**
+   * @return 绑定基本类型数组元素使用的PreparedStatement方法
+   */
+  public String getBatchSetter() {
+    if (this == BYTES) {
+      return "setBytes";
+    }
+    return "set" + Character.toUpperCase(batchType.charAt(0)) + batchType.substring(1);
+  }
+
+  /**
+   * @return 绑定参数使用的PreparedStatement方法
+   */
+  public String getJdbcSetter() {
+    switch (this) {
+      case STRING:
+      case CHAR:
+        return "setString";
+      case BOOLEAN:
+        return "setBoolean";
+      case DATE:
+      case TIMESTAMP:
+      case INSTANT:
+        return "setTimestamp";
+      case LOCALDATE:
+        return "setDate";
+      case LONG:
+        return "setLong";
+      case INTEGER:
+        return "setInt";
+      case SHORT:
+        return "setShort";
+      case BYTE:
+        return "setByte";
+      case FLOAT:
+        return "setFloat";
+      case DOUBLE:
+        return "setDouble";
+      case BIGDECIMAL:
+        return "setBigDecimal";
+      case BYTES:
+        return "setBytes";
+      default:
+        return "setObject";
+    }
+  }
+
+  /**
+   * @return 传给getJdbcSetter()的参数，value为要绑定的值
+   */
+  public String getJdbcArgument() {
+    switch (this) {
+      case DATE:
+        return "value instanceof java.sql.Timestamp ? (java.sql.Timestamp) value"
+               + " : new java.sql.Timestamp(value.getTime())";
+      case CHAR:
+        return "String.valueOf(value)";
+      case INSTANT:
+      case LOCALDATE:
+        return getToJdbc() + "(value)";
+      default:
+        return "value";
+    }
+  }
+
+  /**
+   * @return 编码使用的类型，对应生成的Codec和Json中的writeXXX/readXXX方法，不支持的类型返回null
+   */
+  public String getCodecType() {
+    switch (this) {
+      case STRING:
+        return "String";
+      case BOOLEAN:
+        return "Boolean";
+      case DATE:
+        return "Date";
+      case TIMESTAMP:
+        return "Timestamp";
+      case LONG:
+        return "Long";
+      case INTEGER:
+        return "Int";
+      case FLOAT:
+        return "Float";
+      case BIGDECIMAL:
+        return "Decimal";
+      case DOUBLE:
+        return "Double";
+      case CHAR:
+        return "Char";
+      case BYTES:
+        return "Bytes";
+      case SHORT:
+        return "Short";
+      case BYTE:
+        return "Byte";
+      case INSTANT:
+        return "Instant";
+      case LOCALDATE:
+        return "LocalDate";
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return ResultSet返回、PreparedStatement接收的JDBC类型，与Java类型相同时为null
+   */
+  public String getJdbcClass() {
+    switch (this) {
+      case INSTANT:
+        return "java.sql.Timestamp";
+      case LOCALDATE:
+        return "java.sql.Date";
+      case CHAR:
+        return "String";
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return 将JDBC类型的值转换为Java类型的方法调用，例如".toInstant()"
+   */
+  public String getFromJdbc() {
+    switch (this) {
+      case INSTANT:
+        return ".toInstant()";
+      case LOCALDATE:
+        return ".toLocalDate()";
+      case CHAR:
+        return ".charAt(0)";
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return 将Java类型的值转换为JDBC类型的静态方法，例如"java.sql.Timestamp.from"
+   */
+  public String getToJdbc() {
+    switch (this) {
+      case INSTANT:
+        return "java.sql.Timestamp.from";
+      case LOCALDATE:
+        return "java.sql.Date.valueOf";
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return 从JDBC读取的字符串为空时没有可以转换的字符，按null处理
+   */
+  public boolean isCharacter() {
+    return this == CHAR;
+  }
+
   public boolean isPrimitive() {
     return isPrimitive;
   }
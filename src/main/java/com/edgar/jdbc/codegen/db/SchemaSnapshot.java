@@ -0,0 +1,269 @@
+package com.edgar.jdbc.codegen.db;
+
+import com.google.common.base.Joiner;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import com.edgar.jdbc.codegen.gen.CodegenOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 元数据的本地快照.
+ * <p>
+ * 快照文件以JDBC URL、表名和忽略规则作为key，保存读取到的Table/Column.
+ * 再次生成时先计算指纹，指纹没有变化就直接使用快照.MySQL的指纹是一条INFORMATION_SCHEMA的聚合查询；
+ * 其他数据库需要完整读取字段、主键和索引的元数据，只节省了组装Table/Column的开销.
+ */
+class SchemaSnapshot {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaSnapshot.class);
+
+  private static final int MAGIC = 0x4a434753;
+
+  private static final int VERSION = 5;
+
+  private static final String MYSQL_FINGERPRINT_SQL =
+          "SELECT (SELECT CONCAT(COUNT(*), ':', IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, "
+          + "TABLE_COMMENT))), 0)) FROM INFORMATION_SCHEMA.TABLES "
+          + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_TYPE = 'BASE TABLE'), "
+          + "(SELECT CONCAT(COUNT(*), ':', IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, COLUMN_NAME, "
+          + "ORDINAL_POSITION, COLUMN_TYPE, IS_NULLABLE, COLUMN_DEFAULT, EXTRA, COLUMN_COMMENT))), 0)) "
+          + "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = DATABASE()), "
+          + "(SELECT CONCAT(COUNT(*), ':', IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, INDEX_NAME, "
+          + "NON_UNIQUE, SEQ_IN_INDEX, COLUMN_NAME))), 0)) "
+          + "FROM INFORMATION_SCHEMA.STATISTICS WHERE TABLE_SCHEMA = DATABASE())";
+
+  private final CodegenOptions options;
+
+  private final Path file;
+
+  SchemaSnapshot(CodegenOptions options) {
+    this.options = options;
+    String key = Hashing.sha256().hashString(
+            Joiner.on('\n').useForNull("").join(options.getJdbcUrl(),
+                                                options.getTableNamePattern(),
+                                                options.getIgnoreTablesStr(),
+                                                options.getIgnoreColumnsStr(),
+                                                options.getTypeMapping()),
+            StandardCharsets.UTF_8).toString();
+    this.file = Paths.get(options.getSnapshotDir(), "schema-" + key + ".snapshot");
+  }
+
+  /**
+   * 计算当前数据库结构的指纹.
+   * MySQL使用一条INFORMATION_SCHEMA的聚合查询，其他数据库对getColumns以及每个表的getPrimaryKeys、
+   * getIndexInfo的结果计算哈希，是一次完整的元数据扫描.
+   *
+   * @param conn 数据库连接
+   * @return 指纹
+   */
+  String fingerprint(Connection conn) throws SQLException {
+    DatabaseMetaData dbmd = conn.getMetaData();
+    if ("MySQL".equalsIgnoreCase(dbmd.getDatabaseProductName())) {
+      try (Statement stmt = conn.createStatement();
+           ResultSet rs = stmt.executeQuery(MYSQL_FINGERPRINT_SQL)) {
+        rs.next();
+        return rs.getString(1) + "/" + rs.getString(2) + "/" + rs.getString(3);
+      }
+    }
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    Set<List<String>> tables = new LinkedHashSet<>();
+    try (ResultSet rs = dbmd.getColumns(null, null, options.getTableNamePattern(), null)) {
+      while (rs.next()) {
+        tables.add(Arrays.asList(rs.getString("TABLE_CAT"), rs.getString("TABLE_SCHEM"),
+                                 rs.getString("TABLE_NAME")));
+        hasher.putString(Joiner.on('|').useForNull("").join(
+                rs.getString("TABLE_SCHEM"),
+                rs.getString("TABLE_NAME"),
+                rs.getString("COLUMN_NAME"),
+                rs.getInt("DATA_TYPE"),
+                rs.getInt("COLUMN_SIZE"),
+                rs.getInt("DECIMAL_DIGITS"),
+                rs.getString("IS_NULLABLE"),
+                rs.getString("COLUMN_DEF"),
+                rs.getString("REMARKS"),
+                rs.getString("IS_AUTOINCREMENT")), StandardCharsets.UTF_8);
+      }
+    }
+    for (List<String> table : tables) {
+      try (ResultSet rs = dbmd.getPrimaryKeys(table.get(0), table.get(1), table.get(2))) {
+        while (rs.next()) {
+          hasher.putString(Joiner.on('|').useForNull("").join(
+                  "PK", table.get(2), rs.getString("COLUMN_NAME"), rs.getInt("KEY_SEQ")),
+                           StandardCharsets.UTF_8);
+        }
+      }
+      try (ResultSet rs = dbmd.getIndexInfo(table.get(0), table.get(1), table.get(2), false,
+                                            true)) {
+        while (rs.next()) {
+          hasher.putString(Joiner.on('|').useForNull("").join(
+                  "INDEX", table.get(2), rs.getString("INDEX_NAME"),
+                  rs.getBoolean("NON_UNIQUE"), rs.getInt("ORDINAL_POSITION"),
+                  rs.getString("COLUMN_NAME")), StandardCharsets.UTF_8);
+        }
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * 读取快照.
+   *
+   * @param fingerprint 当前数据库结构的指纹
+   * @return 快照不存在或者已经过期时返回null
+   */
+  List<Table> load(String fingerprint) {
+    if (!Files.exists(file)) {
+      LOGGER.info("Schema snapshot:{} not found", file);
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new GZIPInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        LOGGER.info("Schema snapshot:{} has an unknown format", file);
+        return null;
+      }
+      if (!fingerprint.equals(in.readUTF())) {
+        LOGGER.info("Schema snapshot:{} is stale", file);
+        return null;
+      }
+      int tableCount = in.readInt();
+      List<Table> tables = new ArrayList<>(tableCount);
+      for (int i = 0; i < tableCount; i++) {
+        tables.add(readTable(in));
+      }
+      LOGGER.info("Loaded {} tables from schema snapshot:{}", tableCount, file);
+      return tables;
+    } catch (IOException e) {
+      LOGGER.warn("Error reading schema snapshot:{}, {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * 保存快照.
+   *
+   * @param fingerprint 当前数据库结构的指纹
+   * @param tables      读取到的表
+   */
+  void save(String fingerprint, List<Table> tables) throws IOException {
+    Files.createDirectories(file.getParent());
+    Path tmp = Files.createTempFile(file.getParent(), "schema-", ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+            new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(fingerprint);
+      out.writeInt(tables.size());
+      for (Table table : tables) {
+        writeTable(out, table);
+      }
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    LOGGER.info("Saved {} tables to schema snapshot:{}", tables.size(), file);
+  }
+
+  private void writeTable(DataOutputStream out, Table table) throws IOException {
+    out.writeUTF(table.getName());
+    writeNullable(out, table.getRemarks());
+    out.writeBoolean(table.isIgnore());
+    writeNullable(out, table.getCreateTime());
+    writeNullable(out, table.getUpdateTime());
+    out.writeUTF(table.getIdentifierQuote());
+    out.writeInt(table.getColumns().size());
+    for (Column column : table.getColumns()) {
+      out.writeUTF(column.getName());
+      out.writeInt(column.getSize());
+      writeNullable(out, column.getDefaultValue());
+      out.writeBoolean(column.isNullable());
+      out.writeBoolean(column.isAutoInc());
+      out.writeBoolean(column.isIgnore());
+      out.writeBoolean(column.isPrimary());
+      out.writeBoolean(column.isVersion());
+      out.writeInt(column.getType());
+      out.writeInt(column.getDecimalDigits());
+      out.writeUTF(column.getParameterType().name());
+      writeNullable(out, column.getRemarks());
+    }
+    out.writeInt(table.getIndexes().size());
+    for (Index index : table.getIndexes()) {
+      out.writeUTF(index.getName());
+      out.writeBoolean(index.isUnique());
+      out.writeLong(index.getCardinality());
+      out.writeInt(index.getColumns().size());
+      for (String column : index.getColumns()) {
+        out.writeUTF(column);
+      }
+    }
+  }
+
+  private Table readTable(DataInputStream in) throws IOException {
+    Table table = Table.create(in.readUTF(), readNullable(in));
+    table.setIgnore(in.readBoolean());
+    table.setCreateTime(readNullable(in));
+    table.setUpdateTime(readNullable(in));
+    table.setIdentifierQuote(in.readUTF());
+    int columnCount = in.readInt();
+    for (int i = 0; i < columnCount; i++) {
+      table.addColumn(Column.builder()
+                              .setName(in.readUTF())
+                              .setSize(in.readInt())
+                              .setDefaultValue(readNullable(in))
+                              .setNullable(in.readBoolean())
+                              .setAutoInc(in.readBoolean())
+                              .setIgnore(in.readBoolean())
+                              .setPrimary(in.readBoolean())
+                              .setVersion(in.readBoolean())
+                              .setType(in.readInt())
+                              .setDecimalDigits(in.readInt())
+                              .setParameterType(ParameterType.valueOf(in.readUTF()))
+                              .setRemarks(readNullable(in))
+                              .build());
+    }
+    int indexCount = in.readInt();
+    for (int i = 0; i < indexCount; i++) {
+      Index index = Index.create(in.readUTF(), in.readBoolean());
+      index.setCardinality(in.readLong());
+      int indexColumnCount = in.readInt();
+      for (int j = 0; j < indexColumnCount; j++) {
+        index.addColumn(in.readUTF());
+      }
+      table.addIndex(index);
+    }
+    return table;
+  }
+
+  private void writeNullable(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private String readNullable(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
@@ -2,11 +2,23 @@ package com.edgar.jdbc.codegen.db;
 
 import com.google.common.base.CaseFormat;
 import com.google.common.base.Joiner;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * 数据表.
@@ -21,13 +33,30 @@ public class Table {
 
   private final List<Column> columns = new ArrayList<>();
 
-  List<String> imports= Lists.newArrayList();
+  private final Set<String> imports = new LinkedHashSet<>();
+
+  private final List<Index> indexes = new ArrayList<>();
 
   /**
    * 是否忽略该字段，依赖于codegen的配置.
    */
   private boolean isIgnore;
 
+  /**
+   * 创建时间，数据库不支持时为null.
+   */
+  private String createTime;
+
+  /**
+   * 修改时间，数据库不支持时为null.
+   */
+  private String updateTime;
+
+  /**
+   * 引用表名和列名的字符，读取数据库时由DatabaseMetaData.getIdentifierQuoteString设置，不引用时为空字符串.
+   */
+  private String identifierQuote = "`";
+
   private Table(String name, String remarks) {
     this.name = name;
     this.remarks = remarks;
@@ -41,6 +70,14 @@ public class Table {
     columns.add(column);
   }
 
+  public void addIndex(Index index) {
+    indexes.add(index);
+  }
+
+  public List<Index> getIndexes() {
+    return indexes;
+  }
+
   public String getName() {
     return name;
   }
@@ -61,6 +98,38 @@ public class Table {
     return remarks;
   }
 
+  public String getCreateTime() {
+    return createTime;
+  }
+
+  public void setCreateTime(String createTime) {
+    this.createTime = createTime;
+  }
+
+  public String getUpdateTime() {
+    return updateTime;
+  }
+
+  public void setUpdateTime(String updateTime) {
+    this.updateTime = updateTime;
+  }
+
+  public String getIdentifierQuote() {
+    return identifierQuote;
+  }
+
+  public void setIdentifierQuote(String identifierQuote) {
+    this.identifierQuote = identifierQuote;
+  }
+
+  /**
+   * @param identifier 表名或者列名
+   * @return 用identifierQuote引用的名称
+   */
+  public String quote(String identifier) {
+    return identifierQuote + identifier + identifierQuote;
+  }
+
   public String getFields() {
     return Joiner.on(",\n\t\t\t\t\t\t")
             .join(columns.stream()
@@ -70,6 +139,224 @@ public class Table {
                                   ()));
   }
 
+  /**
+   * @return 对应实体字段的列，不包括忽略的列
+   */
+  public List<Column> getFieldColumns() {
+    return columns.stream()
+            .filter(c -> !c.isIgnore())
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * @return 逗号分隔的列名，顺序与getFieldColumns相同
+   */
+  public String getColumnList() {
+    return joinColumns(getFieldColumns(), "");
+  }
+
+  /**
+   * @return 用于Java数组初始化的列名，顺序与getFieldColumns相同
+   */
+  public String getColumnNames() {
+    return Joiner.on(", ")
+            .join(getFieldColumns().stream()
+                          .map(c -> "\"" + c.getName() + "\"")
+                          .collect(Collectors.toList()));
+  }
+
+  /**
+   * @return 二进制编码的字段，不包括编码不支持的类型，顺序与getFieldColumns相同
+   */
+  public List<Column> getCodecColumns() {
+    return getFieldColumns().stream()
+            .filter(c -> c.getParameterType().getCodecType() != null)
+            .collect(Collectors.toList());
+  }
+
+  public int getCodecColumnCount() {
+    return getCodecColumns().size();
+  }
+
+  /**
+   * 二进制编码的schema指纹：表名以及每个编码字段的名称、类型、是否可以为null，字段的顺序变化时指纹也会变化.
+   *
+   * @return 指纹
+   */
+  public int getSchemaHash() {
+    Hasher hasher = Hashing.murmur3_32().newHasher()
+            .putString(name, StandardCharsets.UTF_8);
+    for (Column column : getCodecColumns()) {
+      hasher.putString(column.getName(), StandardCharsets.UTF_8)
+              .putString(column.getParameterType().name(), StandardCharsets.UTF_8)
+              .putBoolean(column.isNullable());
+    }
+    return hasher.hash().asInt();
+  }
+
+  /**
+   * @return 实体字段的数量
+   */
+  public int getFieldCount() {
+    return getFieldColumns().size();
+  }
+
+  /**
+   * @return 每个字段占一位时需要的long的序号
+   */
+  public List<Integer> getMaskWords() {
+    return IntStream.range(0, (getFieldCount() + 63) >>> 6)
+            .boxed()
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * @return INSERT语句使用的列，不包括忽略的列和自增列
+   */
+  public List<Column> getInsertColumns() {
+    return columns.stream()
+            .filter(c -> !c.isIgnore())
+            .filter(c -> !c.isAutoInc())
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * @return 根据主键UPDATE时修改的列，不包括忽略的列和主键
+   */
+  public List<Column> getUpdateColumns() {
+    return columns.stream()
+            .filter(c -> !c.isIgnore())
+            .filter(c -> !c.isPrimary())
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * @return INSERT语句，参数顺序与getInsertColumns相同
+   */
+  public String getInsertSql() {
+    List<Column> insertColumns = getInsertColumns();
+    return "INSERT INTO " + quote(name) + " (" + joinColumns(insertColumns, "")
+           + ") VALUES ("
+           + Joiner.on(", ").join(Collections.nCopies(insertColumns.size(), "?"))
+           + ")";
+  }
+
+  /**
+   * @return 根据主键修改的UPDATE语句，参数顺序与getUpdateColumns相同，最后一个参数是主键.
+   * 没有可以修改的列时返回null
+   */
+  public String getUpdateSql() {
+    List<Column> updateColumns = getUpdateColumns();
+    if (updateColumns.isEmpty()) {
+      return null;
+    }
+    return "UPDATE " + quote(name) + " SET " + joinColumns(updateColumns, " = ?")
+           + " WHERE " + quote(getPk()) + " = ?";
+  }
+
+  /**
+   * @return 根据主键查询的SELECT语句，查询的列与getColumnList相同
+   */
+  public String getSelectSql() {
+    return "SELECT " + getColumnList() + " FROM " + quote(name)
+           + " WHERE " + quote(getPk()) + " = ?";
+  }
+
+  /**
+   * @return 根据主键删除的DELETE语句
+   */
+  public String getDeleteSql() {
+    return "DELETE FROM " + quote(name) + " WHERE " + quote(getPk()) + " = ?";
+  }
+
+  /**
+   * 可以用于keyset分页的列：主键，以及所有列都不为null、也没有被忽略的唯一索引.
+   *
+   * @return 第一个是主键，列相同的唯一索引只返回一次
+   */
+  public List<Keyset> getKeysets() {
+    Map<String, Column> fieldColumns = new HashMap<>();
+    getFieldColumns().forEach(c -> fieldColumns.put(c.getName(), c));
+    Set<List<String>> seen = new HashSet<>();
+    List<Keyset> keysets = new ArrayList<>();
+    seen.add(Collections.singletonList(getPk()));
+    keysets.add(new Keyset(this,
+                           Collections.singletonList(fieldColumns.get(getPk()))));
+    for (Index index : indexes) {
+      if (!index.isUnique() || !seen.add(index.getColumns())) {
+        continue;
+      }
+      List<Column> keyColumns = index.getColumns().stream()
+              .map(fieldColumns::get)
+              .collect(Collectors.toList());
+      if (keyColumns.stream().allMatch(c -> c != null && !c.isNullable())) {
+        keysets.add(new Keyset(this, keyColumns));
+      }
+    }
+    return keysets;
+  }
+
+  /**
+   * 索引覆盖的等值查询：每个索引的每个前缀都可以使用索引查找，单独的主键除外.
+   *
+   * @return 列集合相同的前缀只返回一次，覆盖唯一索引全部列的优先
+   */
+  public List<Finder> getFinders() {
+    Map<String, Column> fieldColumns = new HashMap<>();
+    getFieldColumns().forEach(c -> fieldColumns.put(c.getName(), c));
+    Map<Set<String>, Finder> finders = new LinkedHashMap<>();
+    for (Index index : indexes) {
+      List<String> indexColumns = index.getColumns();
+      for (int i = 1; i <= indexColumns.size(); i++) {
+        List<String> prefix = indexColumns.subList(0, i);
+        if (!prefix.stream().allMatch(fieldColumns::containsKey)
+            || prefix.equals(Collections.singletonList(getPk()))) {
+          break;
+        }
+        boolean unique = index.isUnique() && i == indexColumns.size();
+        Set<String> key = new HashSet<>(prefix);
+        Finder existing = finders.get(key);
+        if (existing == null || (unique && !existing.isUnique())) {
+          finders.put(key, new Finder(this, index.getName(),
+                                      prefix.stream()
+                                              .map(fieldColumns::get)
+                                              .collect(Collectors.toList()),
+                                      unique));
+        }
+      }
+    }
+    return new ArrayList<>(finders.values());
+  }
+
+  /**
+   * 判断按照这些列等值查询时是否可以使用索引：列的集合与某个索引的前缀相同.
+   *
+   * @param columnNames 列名
+   * @return true:可以使用索引
+   */
+  public boolean isIndexed(List<String> columnNames) {
+    Set<String> key = new HashSet<>(columnNames);
+    for (Index index : indexes) {
+      List<String> indexColumns = index.getColumns();
+      if (indexColumns.size() >= key.size()
+          && new HashSet<>(indexColumns.subList(0, key.size())).equals(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return 由数据库生成的自增主键，没有时返回null
+   */
+  public Column getGeneratedKey() {
+    return columns.stream()
+            .filter(c -> !c.isIgnore())
+            .filter(c -> c.isPrimary() && c.isAutoInc())
+            .findFirst()
+            .orElse(null);
+  }
+
   public String getPk() {
     return columns.stream()
             .filter(c -> !c.isIgnore())
@@ -79,6 +366,14 @@ public class Table {
             .get();
   }
 
+  public Column getPkColumn() {
+    return columns.stream()
+            .filter(c -> !c.isIgnore())
+            .filter(c -> c.isPrimary())
+            .findFirst()
+            .get();
+  }
+
   public ParameterType getPkType() {
     return columns.stream()
             .filter(c -> !c.isIgnore())
@@ -93,9 +388,61 @@ public class Table {
   }
 
   public List<String> getImports() {
-    List<String> list= Lists.newArrayList();
+    Set<String> list = new LinkedHashSet<>();
+    addTypeImports(list, getFieldColumns());
+    list.add("java.util.List");
+    list.add("java.util.Map");
+    list.add("com.google.common.base.MoreObjects");
+    list.add("com.google.common.collect.ImmutableList");
+    list.add("com.google.common.collect.Maps");
+    list.add("com.edgar.util.db.Persistent");
+    list.addAll(imports);
+    return new ArrayList<>(list);
+  }
+
+  /**
+   * @return Dao中finder和分页方法的参数类型需要的import
+   */
+  public List<String> getKeyImports() {
+    Set<String> list = new LinkedHashSet<>();
+    getKeysets().forEach(k -> addTypeImports(list, k.getColumns()));
+    getFinders().forEach(f -> addTypeImports(list, f.getColumns()));
+    return new ArrayList<>(list);
+  }
+
+  /**
+   * @return Binder需要的import：PreparedStatement以及按参数类型绑定的字段类型
+   */
+  public List<String> getBinderImports() {
+    Set<String> list = new TreeSet<>(ImmutableList.of("java.sql.PreparedStatement",
+                                                      "java.sql.SQLException"));
+    addTypeImports(list, getFieldColumns());
+    if (getFieldColumns().stream().anyMatch(c -> c.getParameterType() == ParameterType.LIST)) {
+      list.add("java.util.List");
+    }
+    return new ArrayList<>(list);
+  }
+
+  /**
+   * @return 列式批量容器需要的import，日期和时间按毫秒数加上纳秒保存，只有DECIMAL列需要BigDecimal
+   */
+  public List<String> getBatchImports() {
+    Set<String> list = new TreeSet<>(ImmutableList.of("java.sql.Connection",
+                                                      "java.sql.PreparedStatement",
+                                                      "java.sql.ResultSet",
+                                                      "java.sql.SQLException",
+                                                      "java.sql.Timestamp",
+                                                      "java.util.Arrays"));
+    for (Column column : getFieldColumns()) {
+      if (column.getParameterType() == ParameterType.BIGDECIMAL) {
+        list.add("java.math.BigDecimal");
+      }
+    }
+    return new ArrayList<>(list);
+  }
+
+  private static void addTypeImports(Set<String> list, List<Column> columns) {
     columns.stream()
-            .filter(c -> !c.isIgnore())
             .map(c -> c.getParameterType())
             .forEach(t -> {
               if (t == ParameterType.DATE) {
@@ -107,21 +454,26 @@ public class Table {
               if (t == ParameterType.BIGDECIMAL) {
                 list.add("java.math.BigDecimal");
               }
+              if (t == ParameterType.INSTANT) {
+                list.add("java.time.Instant");
+              }
+              if (t == ParameterType.LOCALDATE) {
+                list.add("java.time.LocalDate");
+              }
             });
-    list.add("java.util.List");
-    list.add("java.util.Map");
-    list.add("com.google.common.base.MoreObjects");
-    list.add("com.google.common.collect.Lists");
-    list.add("com.google.common.collect.Maps");
-    list.add("com.edgar.util.db.Persistent");
-    list.addAll(imports);
-    return list;
   }
 
   public String getUpperCamelName() {
     return CaseFormat.LOWER_UNDERSCORE.to(CaseFormat.UPPER_CAMEL, name);
   }
 
+  private String joinColumns(List<Column> columns, String suffix) {
+    return Joiner.on(", ")
+            .join(columns.stream()
+                          .map(c -> quote(c.getName()) + suffix)
+                          .collect(Collectors.toList()));
+  }
+
   @Override
   public String toString() {
     return "Table{" +
@@ -129,6 +481,8 @@ public class Table {
            ", name='" + name + '\'' +
            ", isIgnore=" + isIgnore +
            ", columns=" + columns +
+           ", indexes=" + indexes +
+           ", identifierQuote='" + identifierQuote + '\'' +
            '}';
   }
 }
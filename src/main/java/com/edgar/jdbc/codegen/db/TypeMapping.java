@@ -0,0 +1,220 @@
+package com.edgar.jdbc.codegen.db;
+
+import java.sql.Types;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SQL类型到Java类型的映射.
+ * <p>
+ * legacy与之前的版本保持一致；precise为每种列选择能精确表示其取值的最小的Java类型：
+ * REAL使用float，FLOAT/DOUBLE使用double，DECIMAL(p,0)在p不超过9时使用int、不超过18时使用long，
+ * SMALLINT/TINYINT使用short/byte，DATE使用LocalDate，TIMESTAMP使用Instant，二进制列使用byte[].
+ * MySQL的UNSIGNED整数列取值超出有符号的范围，precise会放宽一级：TINYINT使用short，SMALLINT使用int，
+ * INT使用long，BIGINT使用BigDecimal.在此基础上可以按SQL类型或者按字段覆盖.
+ */
+public class TypeMapping {
+
+  private final boolean precise;
+
+  private final Map<Integer, ParameterType> sqlTypes = new TreeMap<>();
+
+  private final Map<String, ParameterType> columns = new TreeMap<>();
+
+  private TypeMapping(boolean precise) {
+    this.precise = precise;
+  }
+
+  public static TypeMapping legacy() {
+    return new TypeMapping(false);
+  }
+
+  public static TypeMapping precise() {
+    return new TypeMapping(true);
+  }
+
+  /**
+   * 覆盖一种SQL类型的映射.
+   *
+   * @param sqlType java.sql.Types
+   * @param type    Java类型
+   * @return TypeMapping
+   */
+  public TypeMapping map(int sqlType, ParameterType type) {
+    checkType(type);
+    this.sqlTypes.put(sqlType, type);
+    return this;
+  }
+
+  /**
+   * 覆盖一个字段的映射，优先级最高.
+   *
+   * @param tableName  表名
+   * @param columnName 字段名
+   * @param type       Java类型
+   * @return TypeMapping
+   */
+  public TypeMapping override(String tableName, String columnName, ParameterType type) {
+    checkType(type);
+    this.columns.put(key(tableName, columnName), type);
+    return this;
+  }
+
+  /**
+   * 计算字段的Java类型.
+   *
+   * @param tableName     表名
+   * @param columnName    字段名
+   * @param sqlType       java.sql.Types
+   * @param size          长度，数字类型为精度
+   * @param decimalDigits 小数位数
+   * @return Java类型
+   */
+  public ParameterType resolve(String tableName, String columnName, int sqlType, int size,
+                               int decimalDigits) {
+    return resolve(tableName, columnName, sqlType, size, decimalDigits, false);
+  }
+
+  /**
+   * 计算字段的Java类型.
+   *
+   * @param tableName     表名
+   * @param columnName    字段名
+   * @param sqlType       java.sql.Types
+   * @param size          长度，数字类型为精度
+   * @param decimalDigits 小数位数
+   * @param unsigned      是否是MySQL的UNSIGNED列
+   * @return Java类型
+   */
+  public ParameterType resolve(String tableName, String columnName, int sqlType, int size,
+                               int decimalDigits, boolean unsigned) {
+    ParameterType type = columns.get(key(tableName, columnName));
+    if (type == null) {
+      type = sqlTypes.get(sqlType);
+    }
+    if (type == null && precise && unsigned) {
+      type = unsignedType(sqlType);
+    }
+    if (type == null) {
+      type = precise ? preciseType(sqlType, size, decimalDigits) : legacyType(sqlType);
+    }
+    return type;
+  }
+
+  static ParameterType legacyType(int type) {
+    ParameterType parameter;
+    if ((type == Types.VARCHAR) || (type == Types.LONGVARCHAR) || (type == Types.CLOB)) {
+      parameter = ParameterType.STRING;
+    } else if (type == Types.BIGINT) {
+      parameter = ParameterType.LONG;
+    } else if ((type == Types.DOUBLE) || (type == Types.NUMERIC)) {
+      parameter = ParameterType.BIGDECIMAL;
+    } else if ((type == Types.FLOAT) || (type == Types.DECIMAL)) {
+      parameter = ParameterType.BIGDECIMAL;
+    } else if ((type == Types.INTEGER) || (type == Types.SMALLINT) || (type
+                                                                             == Types.TINYINT)) {
+      parameter = ParameterType.INTEGER;
+    } else if ((type == Types.TIMESTAMP) || (type == Types.TIME) || (type == Types.DATE)) {
+      parameter = ParameterType.DATE;
+    } else if ((type == Types.BIT) || (type == Types.BOOLEAN)) {
+      parameter = ParameterType.BOOLEAN;
+    } else if (type == Types.CHAR) {
+      parameter = ParameterType.STRING;
+    } else {
+      // no specific type found so set to generic object
+      parameter = ParameterType.OBJECT;
+    }
+    return parameter;
+  }
+
+  private static ParameterType unsignedType(int type) {
+    switch (type) {
+      case Types.TINYINT:
+        return ParameterType.SHORT;
+      case Types.SMALLINT:
+        return ParameterType.INTEGER;
+      case Types.INTEGER:
+        return ParameterType.LONG;
+      case Types.BIGINT:
+        return ParameterType.BIGDECIMAL;
+      default:
+        return null;
+    }
+  }
+
+  private static ParameterType preciseType(int type, int size, int decimalDigits) {
+    switch (type) {
+      case Types.CHAR:
+      case Types.VARCHAR:
+      case Types.LONGVARCHAR:
+      case Types.CLOB:
+      case Types.NCHAR:
+      case Types.NVARCHAR:
+      case Types.LONGNVARCHAR:
+      case Types.NCLOB:
+        return ParameterType.STRING;
+      case Types.BIGINT:
+        return ParameterType.LONG;
+      case Types.INTEGER:
+        return ParameterType.INTEGER;
+      case Types.SMALLINT:
+        return ParameterType.SHORT;
+      case Types.TINYINT:
+        return ParameterType.BYTE;
+      case Types.REAL:
+        return ParameterType.FLOAT;
+      case Types.FLOAT:
+      case Types.DOUBLE:
+        return ParameterType.DOUBLE;
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        if (decimalDigits == 0 && size > 0 && size <= 9) {
+          return ParameterType.INTEGER;
+        }
+        if (decimalDigits == 0 && size > 0 && size <= 18) {
+          return ParameterType.LONG;
+        }
+        return ParameterType.BIGDECIMAL;
+      case Types.DATE:
+        return ParameterType.LOCALDATE;
+      case Types.TIMESTAMP:
+      case Types.TIMESTAMP_WITH_TIMEZONE:
+        return ParameterType.INSTANT;
+      case Types.TIME:
+        return ParameterType.DATE;
+      case Types.BIT:
+      case Types.BOOLEAN:
+        return ParameterType.BOOLEAN;
+      case Types.BINARY:
+      case Types.VARBINARY:
+      case Types.LONGVARBINARY:
+      case Types.BLOB:
+        return ParameterType.BYTES;
+      default:
+        return ParameterType.OBJECT;
+    }
+  }
+
+  //JDBC驱动不会返回java.util.List，生成的RowMapper无法读取
+  private static void checkType(ParameterType type) {
+    if (type == null) {
+      throw new IllegalArgumentException("type must not be null");
+    }
+    if (type == ParameterType.LIST) {
+      throw new IllegalArgumentException("LIST cannot be read from a ResultSet");
+    }
+  }
+
+  private static String key(String tableName, String columnName) {
+    return tableName.toLowerCase() + "." + columnName.toLowerCase();
+  }
+
+  @Override
+  public String toString() {
+    return "TypeMapping{" +
+           "precise=" + precise +
+           ", sqlTypes=" + sqlTypes +
+           ", columns=" + columns +
+           '}';
+  }
+}
@@ -0,0 +1,61 @@
+package com.edgar.jdbc.codegen.gen;
+
+/**
+ * 每个表生成的一种文件，例如实体、RowMapper.
+ */
+class Artifact {
+
+  static final Artifact DOMAIN = new Artifact("domain", "tpl/domain.hbs", "", true);
+
+  static final Artifact ROW_MAPPER = new Artifact("rowMapper", "tpl/rowmapper.hbs", "RowMapper",
+                                                  false);
+
+  static final Artifact BINDER = new Artifact("binder", "tpl/binder.hbs", "Binder", false);
+
+  static final Artifact DAO = new Artifact("dao", "tpl/dao.hbs", "Dao", false);
+
+  static final Artifact BATCH = new Artifact("batch", "tpl/batch.hbs", "Batch", false);
+
+  static final Artifact CODEC = new Artifact("codec", "tpl/codec.hbs", "Codec", false);
+
+  static final Artifact JSON = new Artifact("json", "tpl/json.hbs", "Json", false);
+
+  static final Artifact CACHE = new Artifact("cache", "tpl/cache.hbs", "Cache", false);
+
+  private final String name;
+
+  private final String templateFile;
+
+  private final String classSuffix;
+
+  private final boolean userSource;
+
+  /**
+   * @param name         模板名称
+   * @param templateFile 模板文件
+   * @param classSuffix  类名在实体类名上增加的后缀
+   * @param userSource   是否保留已有文件中的用户代码
+   */
+  Artifact(String name, String templateFile, String classSuffix, boolean userSource) {
+    this.name = name;
+    this.templateFile = templateFile;
+    this.classSuffix = classSuffix;
+    this.userSource = userSource;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  String getTemplateFile() {
+    return templateFile;
+  }
+
+  String getClassSuffix() {
+    return classSuffix;
+  }
+
+  boolean isUserSource() {
+    return userSource;
+  }
+}
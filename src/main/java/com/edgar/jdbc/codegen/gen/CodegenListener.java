@@ -0,0 +1,104 @@
+package com.edgar.jdbc.codegen.gen;
+
+import java.util.List;
+
+/**
+ * 代码生成过程的监听器，用于统计各个阶段的耗时.
+ * <p>
+ * 所有的耗时都以纳秒为单位.使用流水线或者并行读取时，方法会在多个线程中被调用，实现类需要保证线程安全.
+ */
+public interface CodegenListener {
+
+  /**
+   * 建立了一个数据库连接.
+   *
+   * @param nanos 耗时
+   */
+  default void onConnect(long nanos) {
+  }
+
+  /**
+   * 执行了一次覆盖多个表的元数据查询，例如批量读取、快照的指纹查询.
+   *
+   * @param query 查询的名称
+   * @param nanos 耗时
+   */
+  default void onMetadataQuery(String query, long nanos) {
+  }
+
+  /**
+   * 一个表的元数据读取完成.
+   *
+   * @param table        表名
+   * @param columnsNanos 读取字段的耗时
+   * @param keysNanos    读取主键的耗时
+   * @param indexesNanos 读取索引的耗时
+   */
+  default void onTableFetched(String table, long columnsNanos, long keysNanos,
+                              long indexesNanos) {
+  }
+
+  /**
+   * 增量生成时表没有变化，跳过.
+   *
+   * @param table 表名
+   */
+  default void onTableSkipped(String table) {
+  }
+
+  /**
+   * 一个文件渲染完成.
+   *
+   * @param table 表名
+   * @param file  文件
+   * @param nanos 耗时
+   */
+  default void onFileRendered(String table, String file, long nanos) {
+  }
+
+  /**
+   * 一个文件写入完成.
+   *
+   * @param table 表名
+   * @param file  文件
+   * @param bytes 字节数
+   * @param nanos 耗时
+   */
+  default void onFileWritten(String table, String file, long bytes, long nanos) {
+  }
+
+  /**
+   * 文件内容没有变化，没有重写.
+   *
+   * @param table 表名
+   * @param file  文件
+   * @param nanos 比较内容的耗时
+   */
+  default void onFileUnchanged(String table, String file, long nanos) {
+  }
+
+  /**
+   * 删除了已经不存在的表对应的文件.
+   *
+   * @param file 文件
+   */
+  default void onFileDeleted(String file) {
+  }
+
+  /**
+   * 用户声明的finder没有索引可以使用，执行时会全表扫描.
+   *
+   * @param table   表名
+   * @param columns 等值查询的列
+   */
+  default void onUnindexedFinder(String table, List<String> columns) {
+  }
+
+  /**
+   * 生成结束.
+   *
+   * @param report 本次生成的统计
+   */
+  default void onFinish(GenerationReport report) {
+  }
+}
@@ -1,10 +1,14 @@
 package com.edgar.jdbc.codegen.gen;
 
+import com.edgar.jdbc.codegen.db.TypeMapping;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Strings;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 /**
@@ -34,6 +38,72 @@ public class CodegenOptions {
 
   private static final String DEFAULT_TABLE_NAME_PATTERN = null;
 
+  //批量读取元数据
+  public static final boolean DEFAULT_BULK_FETCH = false;
+
+  //并行读取元数据使用的连接数
+  public static final int DEFAULT_FETCH_PARALLELISM = 1;
+
+  //元数据快照目录,null表示不使用快照
+  public static final String DEFAULT_SNAPSHOT_DIR = null;
+
+  //只重新生成结构发生变化的表
+  public static final boolean DEFAULT_INCREMENTAL = false;
+
+  //增量生成时删除已经不存在的表对应的文件
+  public static final boolean DEFAULT_DELETE_DROPPED_TABLES = false;
+
+  //流水线的渲染线程数,0表示不使用流水线
+  public static final int DEFAULT_PIPELINE_WORKERS = 0;
+
+  //流水线每个阶段的队列长度
+  public static final int DEFAULT_PIPELINE_QUEUE_DEPTH = 64;
+
+  //生成统计的JSON文件,null表示不输出
+  public static final String DEFAULT_REPORT_FILE = null;
+
+  //生成按序号读取ResultSet的RowMapper
+  public static final boolean DEFAULT_GENERATE_ROW_MAPPER = false;
+
+  //生成批量插入的Dao
+  public static final boolean DEFAULT_GENERATE_DAO = false;
+
+  //生成列式的批量容器
+  public static final boolean DEFAULT_GENERATE_BATCH = false;
+
+  //生成二进制编码
+  public static final boolean DEFAULT_GENERATE_CODEC = false;
+
+  //生成JSON读写
+  public static final boolean DEFAULT_GENERATE_JSON = false;
+
+  //生成按参数序号绑定字段的Binder
+  public static final boolean DEFAULT_GENERATE_BINDER = false;
+
+  //生成按主键缓存实体的Cache
+  public static final boolean DEFAULT_GENERATE_CACHE = false;
+
+  //Cache默认的最大条目数
+  public static final int DEFAULT_CACHE_MAX_SIZE = 10000;
+
+  //Cache的条目写入后默认的有效时间，0表示不过期
+  public static final long DEFAULT_CACHE_EXPIRE_AFTER_WRITE_MILLIS = 0;
+
+  //Dao批量插入时每批的行数
+  public static final int DEFAULT_DAO_BATCH_SIZE = 500;
+
+  //Dao流式查询时每次读取的行数
+  public static final int DEFAULT_DAO_FETCH_SIZE = 1000;
+
+  //Dao按主键批量查询、删除时一条语句中IN的最大参数个数
+  public static final int DEFAULT_DAO_IN_CHUNK_SIZE = 128;
+
+  //实体使用基本类型的字段
+  public static final boolean DEFAULT_PRIMITIVE_FIELDS = false;
+
+  //实体记录修改过的字段
+  public static final boolean DEFAULT_DIRTY_TRACKING = false;
+
   //忽略的字段
   private final List<String> ignoreColumnList = new ArrayList<String>();
 
@@ -71,6 +141,59 @@ public class CodegenOptions {
 
   private String password = DEFAULT_PASSWORD;
 
+  private boolean bulkFetch = DEFAULT_BULK_FETCH;
+
+  private int fetchParallelism = DEFAULT_FETCH_PARALLELISM;
+
+  private String snapshotDir = DEFAULT_SNAPSHOT_DIR;
+
+  private boolean incremental = DEFAULT_INCREMENTAL;
+
+  private boolean deleteDroppedTables = DEFAULT_DELETE_DROPPED_TABLES;
+
+  private int pipelineWorkers = DEFAULT_PIPELINE_WORKERS;
+
+  private int pipelineQueueDepth = DEFAULT_PIPELINE_QUEUE_DEPTH;
+
+  private String reportFile = DEFAULT_REPORT_FILE;
+
+  private boolean generateRowMapper = DEFAULT_GENERATE_ROW_MAPPER;
+
+  private boolean generateDao = DEFAULT_GENERATE_DAO;
+
+  private boolean generateBatch = DEFAULT_GENERATE_BATCH;
+
+  private boolean generateCodec = DEFAULT_GENERATE_CODEC;
+
+  private boolean generateJson = DEFAULT_GENERATE_JSON;
+
+  private boolean generateBinder = DEFAULT_GENERATE_BINDER;
+
+  private boolean generateCache = DEFAULT_GENERATE_CACHE;
+
+  private int cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+
+  private long cacheExpireAfterWriteMillis = DEFAULT_CACHE_EXPIRE_AFTER_WRITE_MILLIS;
+
+  private int daoBatchSize = DEFAULT_DAO_BATCH_SIZE;
+
+  private int daoFetchSize = DEFAULT_DAO_FETCH_SIZE;
+
+  private int daoInChunkSize = DEFAULT_DAO_IN_CHUNK_SIZE;
+
+  private boolean primitiveFields = DEFAULT_PRIMITIVE_FIELDS;
+
+  private boolean dirtyTracking = DEFAULT_DIRTY_TRACKING;
+
+  //SQL类型到Java类型的映射
+  private TypeMapping typeMapping = TypeMapping.legacy();
+
+  //生成过程的监听器
+  private final List<CodegenListener> listeners = new ArrayList<CodegenListener>();
+
+  //用户需要的finder，key为表名，value为每个finder的列
+  private final Map<String, List<List<String>>> finders = new HashMap<>();
+
   /**
    * Default constructor
    */
@@ -179,6 +302,432 @@ public class CodegenOptions {
     return this;
   }
 
+  public boolean isBulkFetch() {
+    return bulkFetch;
+  }
+
+  /**
+   * 使用少量的集合查询一次性读取整个schema的元数据，代替逐表读取.
+   *
+   * @param bulkFetch 是否批量读取
+   * @return CodegenOptions
+   */
+  public CodegenOptions setBulkFetch(boolean bulkFetch) {
+    this.bulkFetch = bulkFetch;
+    return this;
+  }
+
+  public int getFetchParallelism() {
+    return fetchParallelism;
+  }
+
+  /**
+   * 逐表读取元数据时使用的连接数，大于1时每个表的字段和索引会在多个连接上并行读取.
+   *
+   * @param fetchParallelism 连接数
+   * @return CodegenOptions
+   */
+  public CodegenOptions setFetchParallelism(int fetchParallelism) {
+    if (fetchParallelism < 1) {
+      throw new IllegalArgumentException("fetchParallelism must be >= 1");
+    }
+    this.fetchParallelism = fetchParallelism;
+    return this;
+  }
+
+  public String getSnapshotDir() {
+    return snapshotDir;
+  }
+
+  /**
+   * 元数据快照的保存目录，设置后只有在数据库结构的指纹发生变化时才重新读取元数据.
+   *
+   * @param snapshotDir 快照目录
+   * @return CodegenOptions
+   */
+  public CodegenOptions setSnapshotDir(String snapshotDir) {
+    this.snapshotDir = snapshotDir;
+    return this;
+  }
+
+  public boolean isIncremental() {
+    return incremental;
+  }
+
+  /**
+   * 增量生成，只有字段、主键或者表的创建/修改时间与上次生成时不同的表才会重新生成.
+   *
+   * @param incremental 是否增量生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setIncremental(boolean incremental) {
+    this.incremental = incremental;
+    return this;
+  }
+
+  public boolean isDeleteDroppedTables() {
+    return deleteDroppedTables;
+  }
+
+  /**
+   * 增量生成时，删除上次生成过但是已经不存在的表对应的文件.
+   *
+   * @param deleteDroppedTables 是否删除
+   * @return CodegenOptions
+   */
+  public CodegenOptions setDeleteDroppedTables(boolean deleteDroppedTables) {
+    this.deleteDroppedTables = deleteDroppedTables;
+    return this;
+  }
+
+  public int getPipelineWorkers() {
+    return pipelineWorkers;
+  }
+
+  /**
+   * 使用读取、渲染、写文件的流水线，每个表的元数据读取完成后立即交给渲染线程.
+   *
+   * @param pipelineWorkers 渲染线程数,0表示先读取所有的表再依次生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setPipelineWorkers(int pipelineWorkers) {
+    if (pipelineWorkers < 0) {
+      throw new IllegalArgumentException("pipelineWorkers must be >= 0");
+    }
+    this.pipelineWorkers = pipelineWorkers;
+    return this;
+  }
+
+  public int getPipelineQueueDepth() {
+    return pipelineQueueDepth;
+  }
+
+  /**
+   * 流水线每个阶段的队列长度，队列满时上一个阶段会等待.
+   *
+   * @param pipelineQueueDepth 队列长度
+   * @return CodegenOptions
+   */
+  public CodegenOptions setPipelineQueueDepth(int pipelineQueueDepth) {
+    if (pipelineQueueDepth < 1) {
+      throw new IllegalArgumentException("pipelineQueueDepth must be >= 1");
+    }
+    this.pipelineQueueDepth = pipelineQueueDepth;
+    return this;
+  }
+
+  public String getReportFile() {
+    return reportFile;
+  }
+
+  /**
+   * 生成结束后将各个阶段的耗时和数量以JSON格式写入该文件.
+   *
+   * @param reportFile 文件路径
+   * @return CodegenOptions
+   */
+  public CodegenOptions setReportFile(String reportFile) {
+    this.reportFile = reportFile;
+    return this;
+  }
+
+  public TypeMapping getTypeMapping() {
+    return typeMapping;
+  }
+
+  /**
+   * SQL类型到Java类型的映射，默认为TypeMapping.legacy()，与之前的版本一致.
+   * TypeMapping.precise()为每种列选择能精确表示其取值的最小的Java类型，也可以按SQL类型或者按字段覆盖.
+   *
+   * @param typeMapping 映射
+   * @return CodegenOptions
+   */
+  public CodegenOptions setTypeMapping(TypeMapping typeMapping) {
+    if (typeMapping == null) {
+      throw new IllegalArgumentException("typeMapping must not be null");
+    }
+    this.typeMapping = typeMapping;
+    return this;
+  }
+
+  public List<CodegenListener> getListeners() {
+    return listeners;
+  }
+
+  /**
+   * 增加一个监听器，接收连接、元数据读取、渲染、写文件等事件.
+   *
+   * @param listener 监听器
+   * @return CodegenOptions
+   */
+  public CodegenOptions addListener(CodegenListener listener) {
+    this.listeners.add(listener);
+    return this;
+  }
+
+  public List<List<String>> getFinders(String tableName) {
+    return finders.getOrDefault(tableName.toLowerCase(), Collections.emptyList());
+  }
+
+  /**
+   * 声明需要的finder.索引覆盖的列前缀会自动生成findByXXX方法，声明的finder如果没有索引可以使用，
+   * 不会生成方法，而是作为全表扫描记录在生成报告中.
+   *
+   * @param tableName 表名
+   * @param columns   等值查询的列，以逗号分隔
+   * @return CodegenOptions
+   */
+  public CodegenOptions addFinder(String tableName, String columns) {
+    if (Strings.isNullOrEmpty(tableName) || Strings.isNullOrEmpty(columns)) {
+      throw new IllegalArgumentException("tableName and columns must not be empty");
+    }
+    List<String> columnList = new ArrayList<>();
+    StringTokenizer strTok = new StringTokenizer(columns, ",");
+    while (strTok.hasMoreTokens()) {
+      columnList.add(strTok.nextToken().toLowerCase().trim());
+    }
+    this.finders.computeIfAbsent(tableName.toLowerCase(), k -> new ArrayList<>()).add(columnList);
+    return this;
+  }
+
+  public boolean isGenerateRowMapper() {
+    return generateRowMapper;
+  }
+
+  /**
+   * 为每个表生成一个RowMapper，按照字段的序号使用对应类型的getXXX方法读取ResultSet，不使用反射和字段名查找.
+   *
+   * @param generateRowMapper 是否生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setGenerateRowMapper(boolean generateRowMapper) {
+    this.generateRowMapper = generateRowMapper;
+    return this;
+  }
+
+  public boolean isGenerateDao() {
+    return generateDao;
+  }
+
+  /**
+   * 为每个表生成一个Dao，使用addBatch/executeBatch批量插入，自增主键通过getGeneratedKeys回填.
+   * Dao使用RowMapper读取查询结果，生成Dao时总会生成RowMapper.
+   *
+   * @param generateDao 是否生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setGenerateDao(boolean generateDao) {
+    this.generateDao = generateDao;
+    return this;
+  }
+
+  public boolean isGenerateBatch() {
+    return generateBatch;
+  }
+
+  /**
+   * 为每个表生成一个列式的批量容器XXXBatch，每个字段一个数组，可以为null的基本类型字段使用位图记录null.
+   * 容器直接从ResultSet填充，直接绑定到批量插入的PreparedStatement，不为每一行创建对象.
+   *
+   * @param generateBatch 是否生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setGenerateBatch(boolean generateBatch) {
+    this.generateBatch = generateBatch;
+    return this;
+  }
+
+  public boolean isGenerateCodec() {
+    return generateCodec;
+  }
+
+  /**
+   * 为每个表生成一个二进制编码XXXCodec，按照字段顺序读写ByteBuffer，不使用反射.
+   * 整数使用zigzag varint，头部包含schema指纹和null位图，指纹不一致时解码失败.
+   *
+   * @param generateCodec 是否生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setGenerateCodec(boolean generateCodec) {
+    this.generateCodec = generateCodec;
+    return this;
+  }
+
+  public boolean isGenerateJson() {
+    return generateJson;
+  }
+
+  /**
+   * 为每个表生成一个XXXJson，直接向Writer/OutputStream写入JSON，字段名预先转义，
+   * 同时生成流式的解析方法.生成的代码只依赖JDK，不使用反射，也不创建中间的Map.
+   *
+   * @param generateJson 是否生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setGenerateJson(boolean generateJson) {
+    this.generateJson = generateJson;
+    return this;
+  }
+
+  public boolean isGenerateBinder() {
+    return generateBinder;
+  }
+
+  /**
+   * 为每个表生成一个XXXBinder，按参数序号使用与字段类型一致的setXXX方法绑定PreparedStatement，
+   * 基本类型不装箱，null使用setNull和字段的JDBC类型，驱动不需要在运行时推断参数类型.
+   * 生成Dao时总会生成Binder.
+   *
+   * @param generateBinder 是否生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setGenerateBinder(boolean generateBinder) {
+    this.generateBinder = generateBinder;
+    return this;
+  }
+
+  public boolean isGenerateCache() {
+    return generateCache;
+  }
+
+  /**
+   * 为每个表生成一个按主键缓存实体的XXXCache，通过Dao加载，条目分散在多个独立加锁的LRU分段中.
+   * 通过Dao写入的主键在Cache中失效，非自动提交的连接写入的主键在commit(conn)或afterCompletion(conn)之前不会再被缓存，
+   * 并统计命中、未命中和淘汰的次数.
+   * 生成Cache时总会生成Dao.
+   *
+   * @param generateCache 是否生成
+   * @return CodegenOptions
+   */
+  public CodegenOptions setGenerateCache(boolean generateCache) {
+    this.generateCache = generateCache;
+    return this;
+  }
+
+  public int getCacheMaxSize() {
+    return cacheMaxSize;
+  }
+
+  /**
+   * Cache默认的最大条目数，生成的Cache也可以在构造时指定.
+   *
+   * @param cacheMaxSize 条目数
+   * @return CodegenOptions
+   */
+  public CodegenOptions setCacheMaxSize(int cacheMaxSize) {
+    if (cacheMaxSize < 1) {
+      throw new IllegalArgumentException("cacheMaxSize must be >= 1");
+    }
+    this.cacheMaxSize = cacheMaxSize;
+    return this;
+  }
+
+  public long getCacheExpireAfterWriteMillis() {
+    return cacheExpireAfterWriteMillis;
+  }
+
+  /**
+   * Cache的条目加载后默认的有效时间，生成的Cache也可以在构造时指定.
+   *
+   * @param cacheExpireAfterWriteMillis 毫秒，0表示不过期
+   * @return CodegenOptions
+   */
+  public CodegenOptions setCacheExpireAfterWriteMillis(long cacheExpireAfterWriteMillis) {
+    if (cacheExpireAfterWriteMillis < 0) {
+      throw new IllegalArgumentException("cacheExpireAfterWriteMillis must be >= 0");
+    }
+    this.cacheExpireAfterWriteMillis = cacheExpireAfterWriteMillis;
+    return this;
+  }
+
+  public int getDaoBatchSize() {
+    return daoBatchSize;
+  }
+
+  /**
+   * Dao批量插入时默认的每批行数，生成的Dao也可以在构造时指定.
+   *
+   * @param daoBatchSize 行数
+   * @return CodegenOptions
+   */
+  public CodegenOptions setDaoBatchSize(int daoBatchSize) {
+    if (daoBatchSize < 1) {
+      throw new IllegalArgumentException("daoBatchSize must be >= 1");
+    }
+    this.daoBatchSize = daoBatchSize;
+    return this;
+  }
+
+  public int getDaoFetchSize() {
+    return daoFetchSize;
+  }
+
+  /**
+   * Dao的stream和forEach查询默认的fetchSize，生成的Dao也可以在构造时指定.
+   * MySQL没有开启useCursorFetch时总是逐行读取.
+   *
+   * @param daoFetchSize 行数
+   * @return CodegenOptions
+   */
+  public CodegenOptions setDaoFetchSize(int daoFetchSize) {
+    if (daoFetchSize < 1) {
+      throw new IllegalArgumentException("daoFetchSize must be >= 1");
+    }
+    this.daoFetchSize = daoFetchSize;
+    return this;
+  }
+
+  public int getDaoInChunkSize() {
+    return daoInChunkSize;
+  }
+
+  /**
+   * Dao的findByIds和deleteByIds把主键拆分为多条IN语句，每条语句最多包含的主键个数.
+   * 不足的部分向上取整到2的幂并用重复的主键补齐，所以每个表最多只有log2(n)+1种不同的语句.
+   *
+   * @param daoInChunkSize 主键个数
+   * @return CodegenOptions
+   */
+  public CodegenOptions setDaoInChunkSize(int daoInChunkSize) {
+    if (daoInChunkSize < 1) {
+      throw new IllegalArgumentException("daoInChunkSize must be >= 1");
+    }
+    this.daoInChunkSize = daoInChunkSize;
+    return this;
+  }
+
+  public boolean isPrimitiveFields() {
+    return primitiveFields;
+  }
+
+  /**
+   * 实体中可以使用基本类型的字段(long,int,boolean,double等)不再使用包装类型.
+   * NOT NULL的列直接生成基本类型；可以为null的列也生成基本类型，是否为null记录在一个long的位中，
+   * 同时生成接收包装类型和基本类型的两个setter，以及返回基本类型的getXXXValue方法.
+   *
+   * @param primitiveFields 是否使用基本类型
+   * @return CodegenOptions
+   */
+  public CodegenOptions setPrimitiveFields(boolean primitiveFields) {
+    this.primitiveFields = primitiveFields;
+    return this;
+  }
+
+  public boolean isDirtyTracking() {
+    return dirtyTracking;
+  }
+
+  /**
+   * 实体的setter在一组long的位中记录修改过的字段，生成的Dao的update方法只修改这些字段对应的列.
+   *
+   * @param dirtyTracking 是否记录修改过的字段
+   * @return CodegenOptions
+   */
+  public CodegenOptions setDirtyTracking(boolean dirtyTracking) {
+    this.dirtyTracking = dirtyTracking;
+    return this;
+  }
+
   private void setIgnoreTable() {
     if (!Strings.isNullOrEmpty(ignoreTablesStr)) {
       StringTokenizer strTok = new StringTokenizer(ignoreTablesStr, ",");
@@ -0,0 +1,66 @@
+package com.edgar.jdbc.codegen.gen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将事件依次转发给多个监听器.
+ */
+public class CompositeCodegenListener implements CodegenListener {
+
+  private final List<CodegenListener> listeners;
+
+  public CompositeCodegenListener(List<CodegenListener> listeners) {
+    this.listeners = new ArrayList<>(listeners);
+  }
+
+  @Override
+  public void onConnect(long nanos) {
+    listeners.forEach(l -> l.onConnect(nanos));
+  }
+
+  @Override
+  public void onMetadataQuery(String query, long nanos) {
+    listeners.forEach(l -> l.onMetadataQuery(query, nanos));
+  }
+
+  @Override
+  public void onTableFetched(String table, long columnsNanos, long keysNanos, long indexesNanos) {
+    listeners.forEach(l -> l.onTableFetched(table, columnsNanos, keysNanos, indexesNanos));
+  }
+
+  @Override
+  public void onTableSkipped(String table) {
+    listeners.forEach(l -> l.onTableSkipped(table));
+  }
+
+  @Override
+  public void onFileRendered(String table, String file, long nanos) {
+    listeners.forEach(l -> l.onFileRendered(table, file, nanos));
+  }
+
+  @Override
+  public void onFileWritten(String table, String file, long bytes, long nanos) {
+    listeners.forEach(l -> l.onFileWritten(table, file, bytes, nanos));
+  }
+
+  @Override
+  public void onFileUnchanged(String table, String file, long nanos) {
+    listeners.forEach(l -> l.onFileUnchanged(table, file, nanos));
+  }
+
+  @Override
+  public void onFileDeleted(String file) {
+    listeners.forEach(l -> l.onFileDeleted(file));
+  }
+
+  @Override
+  public void onUnindexedFinder(String table, List<String> columns) {
+    listeners.forEach(l -> l.onUnindexedFinder(table, columns));
+  }
+
+  @Override
+  public void onFinish(GenerationReport report) {
+    listeners.forEach(l -> l.onFinish(report));
+  }
+}
@@ -0,0 +1,33 @@
+package com.edgar.jdbc.codegen.gen;
+
+import com.edgar.jdbc.codegen.db.Table;
+
+/**
+ * 渲染完成、等待写入的文件.
+ */
+class GeneratedFile {
+
+  private final Table table;
+
+  private final String fileName;
+
+  private final String code;
+
+  GeneratedFile(Table table, String fileName, String code) {
+    this.table = table;
+    this.fileName = fileName;
+    this.code = code;
+  }
+
+  Table getTable() {
+    return table;
+  }
+
+  String getFileName() {
+    return fileName;
+  }
+
+  String getCode() {
+    return code;
+  }
+}
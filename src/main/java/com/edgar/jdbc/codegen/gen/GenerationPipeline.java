@@ -0,0 +1,145 @@
+package com.edgar.jdbc.codegen.gen;
+
+import com.edgar.jdbc.codegen.db.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 读取、渲染、写文件的流水线.
+ * <p>
+ * 读取完成的表通过有界队列交给多个渲染线程，渲染好的代码再通过有界队列交给一个写文件的线程.
+ * 队列满时上一个阶段会阻塞，内存占用只取决于队列的长度，与表的数量无关.
+ */
+class GenerationPipeline {
+  private static final Logger LOGGER = LoggerFactory.getLogger(GenerationPipeline.class);
+
+  private static final Table END_OF_TABLES = Table.create("", null);
+
+  private static final GeneratedFile END_OF_FILES = new GeneratedFile(END_OF_TABLES, null, null);
+
+  private final BlockingQueue<Table> renderQueue;
+
+  private final BlockingQueue<GeneratedFile> writeQueue;
+
+  private final List<Thread> renderers = new ArrayList<>();
+
+  private final Thread writer;
+
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  /**
+   * @param workers    渲染线程数
+   * @param queueDepth 队列长度
+   * @param render     渲染
+   * @param write      写文件
+   */
+  GenerationPipeline(int workers, int queueDepth, Function<Table, List<GeneratedFile>> render,
+                     Consumer<GeneratedFile> write) {
+    this.renderQueue = new ArrayBlockingQueue<>(queueDepth);
+    this.writeQueue = new ArrayBlockingQueue<>(queueDepth);
+    for (int i = 0; i < workers; i++) {
+      Thread renderer = new Thread(() -> {
+        try {
+          for (Table table = renderQueue.take(); table != END_OF_TABLES;
+               table = renderQueue.take()) {
+            //出错后继续消费队列，避免上游阻塞
+            if (failure.get() == null) {
+              try {
+                for (GeneratedFile file : render.apply(table)) {
+                  writeQueue.put(file);
+                }
+              } catch (Throwable e) {
+                fail(e);
+              }
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }, "codegen-render-" + i);
+      renderer.setDaemon(true);
+      renderers.add(renderer);
+    }
+    this.writer = new Thread(() -> {
+      try {
+        for (GeneratedFile file = writeQueue.take(); file != END_OF_FILES;
+             file = writeQueue.take()) {
+          if (failure.get() == null) {
+            try {
+              write.accept(file);
+            } catch (Throwable e) {
+              fail(e);
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, "codegen-writer");
+    writer.setDaemon(true);
+  }
+
+  void start() {
+    renderers.forEach(Thread::start);
+    writer.start();
+  }
+
+  /**
+   * 提交一个表，队列满时阻塞.
+   *
+   * @param table 表
+   */
+  void submit(Table table) {
+    checkFailure();
+    try {
+      renderQueue.put(table);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * 等待所有提交的表渲染并写入完成.
+   */
+  void finish() {
+    try {
+      for (int i = 0; i < renderers.size(); i++) {
+        renderQueue.put(END_OF_TABLES);
+      }
+      for (Thread renderer : renderers) {
+        renderer.join();
+      }
+      writeQueue.put(END_OF_FILES);
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    checkFailure();
+  }
+
+  private void fail(Throwable e) {
+    if (failure.compareAndSet(null, e)) {
+      LOGGER.error("Error occcured during code generation." + e);
+    }
+  }
+
+  private void checkFailure() {
+    Throwable e = failure.get();
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e != null) {
+      throw new RuntimeException(e);
+    }
+  }
+}
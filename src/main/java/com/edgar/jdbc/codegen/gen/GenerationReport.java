@@ -0,0 +1,270 @@
+package com.edgar.jdbc.codegen.gen;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 一次代码生成的统计：连接、元数据读取、渲染、写文件的耗时和数量.
+ * <p>
+ * 生成结束后可以通过toJson输出为JSON，也可以通过CodegenOptions.setReportFile写入文件.
+ */
+public class GenerationReport implements CodegenListener {
+
+  private final long startedAt = System.currentTimeMillis();
+
+  private final long startNanos = System.nanoTime();
+
+  private volatile long totalNanos;
+
+  private final Timer connect = new Timer();
+
+  private final Timer render = new Timer();
+
+  private final Timer write = new Timer();
+
+  private final Timer unchanged = new Timer();
+
+  private final AtomicLong bytesWritten = new AtomicLong();
+
+  private final AtomicInteger tablesSkipped = new AtomicInteger();
+
+  private final AtomicInteger filesDeleted = new AtomicInteger();
+
+  private final Map<String, Timer> metadataQueries = new ConcurrentHashMap<>();
+
+  private final Map<String, TableStats> tables = new ConcurrentSkipListMap<>();
+
+  private final Queue<String> unindexedFinders = new ConcurrentLinkedQueue<>();
+
+  @Override
+  public void onConnect(long nanos) {
+    connect.add(nanos);
+  }
+
+  @Override
+  public void onMetadataQuery(String query, long nanos) {
+    metadataQueries.computeIfAbsent(query, k -> new Timer()).add(nanos);
+  }
+
+  @Override
+  public void onTableFetched(String table, long columnsNanos, long keysNanos, long indexesNanos) {
+    TableStats stats = table(table);
+    stats.columnsNanos.addAndGet(columnsNanos);
+    stats.keysNanos.addAndGet(keysNanos);
+    stats.indexesNanos.addAndGet(indexesNanos);
+  }
+
+  @Override
+  public void onTableSkipped(String table) {
+    tablesSkipped.incrementAndGet();
+    table(table).skipped = true;
+  }
+
+  @Override
+  public void onFileRendered(String table, String file, long nanos) {
+    render.add(nanos);
+    table(table).renderNanos.addAndGet(nanos);
+  }
+
+  @Override
+  public void onFileWritten(String table, String file, long bytes, long nanos) {
+    write.add(nanos);
+    bytesWritten.addAndGet(bytes);
+    TableStats stats = table(table);
+    stats.writeNanos.addAndGet(nanos);
+    stats.bytesWritten.addAndGet(bytes);
+    stats.filesWritten.incrementAndGet();
+  }
+
+  @Override
+  public void onFileUnchanged(String table, String file, long nanos) {
+    unchanged.add(nanos);
+    TableStats stats = table(table);
+    stats.writeNanos.addAndGet(nanos);
+    stats.filesUnchanged.incrementAndGet();
+  }
+
+  @Override
+  public void onFileDeleted(String file) {
+    filesDeleted.incrementAndGet();
+  }
+
+  @Override
+  public void onUnindexedFinder(String table, List<String> columns) {
+    unindexedFinders.add("{\"table\": " + quote(table) + ", \"columns\": ["
+                         + columns.stream().map(GenerationReport::quote)
+                                 .collect(Collectors.joining(", "))
+                         + "], \"access\": \"FULL_SCAN\"}");
+  }
+
+  @Override
+  public void onFinish(GenerationReport report) {
+    totalNanos = System.nanoTime() - startNanos;
+  }
+
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  public long getConnectNanos() {
+    return connect.nanos.get();
+  }
+
+  public long getRenderNanos() {
+    return render.nanos.get();
+  }
+
+  public long getWriteNanos() {
+    return write.nanos.get();
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  public int getFilesWritten() {
+    return write.count.get();
+  }
+
+  public int getFilesUnchanged() {
+    return unchanged.count.get();
+  }
+
+  public int getFilesDeleted() {
+    return filesDeleted.get();
+  }
+
+  public int getTablesSkipped() {
+    return tablesSkipped.get();
+  }
+
+  /**
+   * @return 没有索引可以使用的finder数量
+   */
+  public int getUnindexedFinders() {
+    return unindexedFinders.size();
+  }
+
+  /**
+   * @return JSON格式的统计，耗时以毫秒为单位
+   */
+  public String toJson() {
+    StringBuilder json = new StringBuilder("{\n");
+    json.append("  \"startedAt\": ").append(startedAt).append(",\n");
+    json.append("  \"totalMillis\": ").append(millis(totalNanos)).append(",\n");
+    json.append("  \"connect\": ").append(connect.toJson()).append(",\n");
+    json.append("  \"metadataQueries\": {");
+    String separator = "\n";
+    for (Map.Entry<String, Timer> entry : new ConcurrentSkipListMap<>(metadataQueries)
+            .entrySet()) {
+      json.append(separator).append("    ").append(quote(entry.getKey())).append(": ")
+              .append(entry.getValue().toJson());
+      separator = ",\n";
+    }
+    json.append(metadataQueries.isEmpty() ? "},\n" : "\n  },\n");
+    json.append("  \"render\": ").append(render.toJson()).append(",\n");
+    json.append("  \"write\": ").append(write.toJson()).append(",\n");
+    json.append("  \"unchanged\": ").append(unchanged.toJson()).append(",\n");
+    json.append("  \"bytesWritten\": ").append(bytesWritten.get()).append(",\n");
+    json.append("  \"filesWritten\": ").append(write.count.get()).append(",\n");
+    json.append("  \"filesUnchanged\": ").append(unchanged.count.get()).append(",\n");
+    json.append("  \"filesDeleted\": ").append(filesDeleted.get()).append(",\n");
+    json.append("  \"tablesSkipped\": ").append(tablesSkipped.get()).append(",\n");
+    json.append("  \"unindexedFinders\": [");
+    separator = "\n";
+    for (String finder : unindexedFinders) {
+      json.append(separator).append("    ").append(finder);
+      separator = ",\n";
+    }
+    json.append(unindexedFinders.isEmpty() ? "],\n" : "\n  ],\n");
+    json.append("  \"tables\": [");
+    separator = "\n";
+    for (Map.Entry<String, TableStats> entry : tables.entrySet()) {
+      json.append(separator).append("    ").append(entry.getValue().toJson(entry.getKey()));
+      separator = ",\n";
+    }
+    json.append(tables.isEmpty() ? "]\n" : "\n  ]\n");
+    return json.append("}\n").toString();
+  }
+
+  private TableStats table(String table) {
+    return tables.computeIfAbsent(table, k -> new TableStats());
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f",
+                         nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  private static class Timer {
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private void add(long elapsed) {
+      count.incrementAndGet();
+      nanos.addAndGet(elapsed);
+    }
+
+    private String toJson() {
+      return "{\"count\": " + count.get() + ", \"totalMillis\": " + millis(nanos.get()) + "}";
+    }
+  }
+
+  private static class TableStats {
+    private final AtomicLong columnsNanos = new AtomicLong();
+
+    private final AtomicLong keysNanos = new AtomicLong();
+
+    private final AtomicLong indexesNanos = new AtomicLong();
+
+    private final AtomicLong renderNanos = new AtomicLong();
+
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private final AtomicInteger filesWritten = new AtomicInteger();
+
+    private final AtomicInteger filesUnchanged = new AtomicInteger();
+
+    private volatile boolean skipped;
+
+    private String toJson(String name) {
+      return "{\"name\": " + quote(name)
+             + ", \"columnsMillis\": " + millis(columnsNanos.get())
+             + ", \"keysMillis\": " + millis(keysNanos.get())
+             + ", \"indexesMillis\": " + millis(indexesNanos.get())
+             + ", \"renderMillis\": " + millis(renderNanos.get())
+             + ", \"writeMillis\": " + millis(writeNanos.get())
+             + ", \"bytesWritten\": " + bytesWritten.get()
+             + ", \"filesWritten\": " + filesWritten.get()
+             + ", \"filesUnchanged\": " + filesUnchanged.get()
+             + ", \"skipped\": " + skipped + "}";
+    }
+  }
+}
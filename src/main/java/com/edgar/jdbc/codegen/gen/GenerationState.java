@@ -0,0 +1,124 @@
+package com.edgar.jdbc.codegen.gen;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import com.edgar.jdbc.codegen.db.Column;
+import com.edgar.jdbc.codegen.db.Index;
+import com.edgar.jdbc.codegen.db.Table;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 增量生成的状态，记录上次生成时每个表的指纹.
+ * <p>
+ * 指纹由表名、备注、字段、主键以及数据库提供的创建/修改时间计算得到，再加上模板和包名，模板变化时所有的表都会重新生成.
+ */
+class GenerationState {
+
+  private final Path file;
+
+  private final Map<String, String> previous;
+
+  private final Map<String, String> current = new TreeMap<>();
+
+  private GenerationState(Path file, Map<String, String> previous) {
+    this.file = file;
+    this.previous = previous;
+  }
+
+  /**
+   * 读取状态文件，文件不存在时所有的表都视为新增.
+   *
+   * @param file 状态文件
+   * @return GenerationState
+   */
+  static GenerationState load(Path file) {
+    Map<String, String> previous = new HashMap<>();
+    if (Files.exists(file)) {
+      try {
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+          int index = line.lastIndexOf('=');
+          if (index > 0) {
+            previous.put(line.substring(0, index), line.substring(index + 1));
+          }
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return new GenerationState(file, previous);
+  }
+
+  /**
+   * 计算表的指纹.
+   *
+   * @param table 表
+   * @param salt  模板等其他影响生成结果的内容
+   * @return 指纹
+   */
+  static String fingerprint(Table table, String salt) {
+    Hasher hasher = Hashing.murmur3_128().newHasher()
+            .putString(salt, StandardCharsets.UTF_8)
+            .putString(table.getName(), StandardCharsets.UTF_8)
+            .putString(String.valueOf(table.getRemarks()), StandardCharsets.UTF_8)
+            .putBoolean(table.isIgnore())
+            .putString(String.valueOf(table.getCreateTime()), StandardCharsets.UTF_8)
+            .putString(String.valueOf(table.getUpdateTime()), StandardCharsets.UTF_8)
+            .putString(table.getIdentifierQuote(), StandardCharsets.UTF_8);
+    for (Column column : table.getColumns()) {
+      hasher.putString(column.toString(), StandardCharsets.UTF_8);
+    }
+    for (Index index : table.getIndexes()) {
+      hasher.putString(index.getName(), StandardCharsets.UTF_8)
+              .putBoolean(index.isUnique())
+              .putString(index.getColumns().toString(), StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * 记录表的指纹，并判断与上次生成时相比是否发生了变化.
+   *
+   * @param tableName   表名
+   * @param fingerprint 指纹
+   * @return true:新增或者发生了变化
+   */
+  boolean update(String tableName, String fingerprint) {
+    current.put(tableName, fingerprint);
+    return !fingerprint.equals(previous.get(tableName));
+  }
+
+  /**
+   * @return 上次生成过，本次已经不存在的表
+   */
+  Set<String> droppedTables() {
+    Set<String> dropped = new TreeSet<>(previous.keySet());
+    dropped.removeAll(current.keySet());
+    return dropped;
+  }
+
+  void save() {
+    try {
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+          writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
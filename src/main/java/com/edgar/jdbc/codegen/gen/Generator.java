@@ -1,25 +1,24 @@
 package com.edgar.jdbc.codegen.gen;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.CaseFormat;
 import com.google.common.base.CharMatcher;
-import com.google.common.base.Splitter;
+import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
 import com.google.common.io.ByteStreams;
 
+import com.edgar.jdbc.codegen.db.Column;
 import com.edgar.jdbc.codegen.db.DBFetcher;
+import com.edgar.jdbc.codegen.db.ParameterType;
 import com.edgar.jdbc.codegen.db.Table;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Helper;
 import com.github.jknack.handlebars.Options;
-import com.github.jknack.handlebars.Template;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
@@ -29,10 +28,20 @@ import java.net.URLDecoder;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 
 /**
  * Created by Edgar on 2017/5/17.
@@ -50,21 +59,26 @@ public class Generator {
   private static final String IS_COMMENT_START = "/* START";
   private static final String IS_COMMENT_END = "/* END";
 
-  private static final String tplFile = "tpl/domain.hbs";
+  private static final String STATE_FILE = ".codegen-state";
 
   private final CodegenOptions options;
 
-  private final String tpl;
-
   private final Handlebars handlebars = new Handlebars();
 
+  private final TemplateSet templates;
+
+  private final List<Artifact> artifacts = new ArrayList<>();
+
+  private volatile GenerationReport report = new GenerationReport();
+
+  private volatile CodegenListener listener = report;
+
   private final String packageName;
 
   private final String srcFolderPath;
 
   public Generator(CodegenOptions options) {
     this.options = options;
-    this.tpl = resolveFile(tplFile);
     this.packageName = options.getDomainPackage();
     this.srcFolderPath = options.getSrcFolderPath();
     handlebars.registerHelper("safestr", new Helper<String>() {
@@ -73,12 +87,131 @@ public class Generator {
         return new Handlebars.SafeString(str);
       }
     });
+    //SQL放在Java字符串常量中，引用标识符的字符可能是双引号
+    handlebars.registerHelper("javastr", new Helper<String>() {
+      @Override
+      public Object apply(String str, Options options) throws IOException {
+        return new Handlebars.SafeString(escapeJava(str));
+      }
+    });
+    handlebars.registerHelper("quote", new Helper<String>() {
+      @Override
+      public Object apply(String identifier, Options options) throws IOException {
+        Table table = options.param(0);
+        return new Handlebars.SafeString(escapeJava(table.quote(identifier)));
+      }
+    });
     handlebars.registerHelper("lowUnderscoreToLowCamel", new Helper<String>() {
       @Override
       public Object apply(String str, Options options) throws IOException {
         return (CaseFormat.LOWER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, str));
       }
     });
+    handlebars.registerHelper("inc", new Helper<Integer>() {
+      @Override
+      public Object apply(Integer index, Options options) throws IOException {
+        return index + 1;
+      }
+    });
+    handlebars.registerHelper("primitiveField", new Helper<Column>() {
+      @Override
+      public Object apply(Column column, Options options) throws IOException {
+        return isPrimitiveField(column);
+      }
+    });
+    handlebars.registerHelper("fieldType", new Helper<Column>() {
+      @Override
+      public Object apply(Column column, Options options) throws IOException {
+        ParameterType type = column.getParameterType();
+        return isPrimitiveField(column) ? type.getPrimitiveName() : type.getName();
+      }
+    });
+    handlebars.registerHelper("nullMaskWords", new Helper<Table>() {
+      @Override
+      public Object apply(Table table, Options options) throws IOException {
+        List<Column> columns = table.getFieldColumns();
+        Set<Integer> words = new TreeSet<>();
+        for (int i = 0; i < columns.size(); i++) {
+          if (columns.get(i).isNullable() && isPrimitiveField(columns.get(i))) {
+            words.add(i >>> 6);
+          }
+        }
+        return words;
+      }
+    });
+    handlebars.registerHelper("maskWord", new Helper<Integer>() {
+      @Override
+      public Object apply(Integer index, Options options) throws IOException {
+        return index >>> 6;
+      }
+    });
+    handlebars.registerHelper("maskBit", new Helper<Integer>() {
+      @Override
+      public Object apply(Integer index, Options options) throws IOException {
+        return index & 63;
+      }
+    });
+    handlebars.registerHelper("batchNullable", new Helper<Column>() {
+      @Override
+      public Object apply(Column column, Options options) throws IOException {
+        return column.isNullable() && column.getParameterType().isBatchPrimitive();
+      }
+    });
+    //时间戳在毫秒数之外单独保存不足一毫秒的纳秒，DATE列没有时间部分
+    handlebars.registerHelper("batchNanos", new Helper<Column>() {
+      @Override
+      public Object apply(Column column, Options options) throws IOException {
+        return column.getParameterType().isBatchTemporal()
+               && column.getParameterType() != ParameterType.LOCALDATE
+               && column.getType() != Types.DATE;
+      }
+    });
+    //数组类型的长度写在第一维：byte[] -> byte[length][]
+    handlebars.registerHelper("newArray", new Helper<String>() {
+      @Override
+      public Object apply(String type, Options options) throws IOException {
+        String length = options.param(0);
+        int dims = type.indexOf('[');
+        return dims < 0 ? type + "[" + length + "]"
+                : type.substring(0, dims) + "[" + length + "]" + type.substring(dims);
+      }
+    });
+    artifacts.add(Artifact.DOMAIN);
+    boolean dao = options.isGenerateDao() || options.isGenerateCache();
+    if (options.isGenerateRowMapper() || dao) {
+      artifacts.add(Artifact.ROW_MAPPER);
+    }
+    if (options.isGenerateBinder() || dao) {
+      artifacts.add(Artifact.BINDER);
+    }
+    if (dao) {
+      artifacts.add(Artifact.DAO);
+    }
+    if (options.isGenerateBatch()) {
+      artifacts.add(Artifact.BATCH);
+    }
+    if (options.isGenerateCodec()) {
+      artifacts.add(Artifact.CODEC);
+    }
+    if (options.isGenerateJson()) {
+      artifacts.add(Artifact.JSON);
+    }
+    if (options.isGenerateCache()) {
+      artifacts.add(Artifact.CACHE);
+    }
+    this.templates = new TemplateSet(handlebars);
+    for (Artifact artifact : artifacts) {
+      templates.add(artifact.getName(), resolveFile(artifact.getTemplateFile()));
+    }
+  }
+
+  //NOT NULL的列直接使用基本类型，可以为null的列使用基本类型加上标记是否为null的位
+  private boolean isPrimitiveField(Column column) {
+    return options.isPrimitiveFields() && column.getParameterType().isPrimitive();
+  }
+
+  private static String escapeJava(String str) {
+    return str.replace("\\", "\\\\").replace("\"", "\\\"");
   }
 
   private synchronized String readFromFileURL(URL url) {
@@ -101,18 +234,209 @@ public class Generator {
   }
 
   public void generate() {
-    List<Table> tables = new DBFetcher(options).fetchTablesFromDb();
-    tables.forEach(t -> execute(t));
+    report = new GenerationReport();
+    List<CodegenListener> listeners = new ArrayList<>();
+    listeners.add(report);
+    listeners.addAll(options.getListeners());
+    listener = new CompositeCodegenListener(listeners);
+    DBFetcher fetcher = new DBFetcher(options, listener);
+    GenerationState state = options.isIncremental()
+            ? GenerationState.load(Paths.get(getPackageFolder(), STATE_FILE)) : null;
+    String salt = generationSalt();
+    AtomicInteger total = new AtomicInteger();
+    if (options.getPipelineWorkers() > 0) {
+      GenerationPipeline pipeline =
+              new GenerationPipeline(options.getPipelineWorkers(), options.getPipelineQueueDepth(),
+                                     this::render, this::write);
+      pipeline.start();
+      try {
+        fetcher.fetchTablesFromDb(t -> {
+          total.incrementAndGet();
+          checkTable(t);
+          if (needsGeneration(state, salt, t)) {
+            pipeline.submit(t);
+          }
+        });
+      } finally {
+        //提交失败时也要结束渲染线程，渲染失败由finish抛出
+        pipeline.finish();
+      }
+    } else {
+      List<Table> tables = fetcher.fetchTablesFromDb();
+      total.set(tables.size());
+      tables.forEach(this::checkTable);
+      tables.stream()
+              .filter(t -> needsGeneration(state, salt, t))
+              .forEach(t -> execute(t));
+    }
+    if (state != null) {
+      LOGGER.info("Incremental generation: {} tables, {} unchanged", total.get(),
+                  report.getTablesSkipped());
+      saveState(fetcher, state);
+    }
+    listener.onFinish(report);
+    LOGGER.info("Generation finished: {} files written, {} unchanged, {} deleted",
+                report.getFilesWritten(), report.getFilesUnchanged(), report.getFilesDeleted());
+    if (!Strings.isNullOrEmpty(options.getReportFile())) {
+      writeReport(options.getReportFile());
+    }
+  }
+
+  private void checkTable(Table table) {
+    //声明的finder没有索引可用时只记录，不生成全表扫描的方法
+    for (List<String> columns : options.getFinders(table.getName())) {
+      if (!table.isIndexed(columns)) {
+        LOGGER.warn("Finder {}{} is not covered by any index, it will scan the whole table",
+                    table.getName(), columns);
+        listener.onUnindexedFinder(table.getName(), columns);
+      }
+    }
+    //编码不支持的字段不写入Codec和Json，读取后保持null
+    if (options.isGenerateCodec() || options.isGenerateJson()) {
+      for (Column column : table.getFieldColumns()) {
+        if (column.getParameterType().getCodecType() == null) {
+          LOGGER.warn("Column {}.{} of type {} has no codec or JSON form, it is skipped",
+                      table.getName(), column.getName(), column.getParameterType().getName());
+        }
+      }
+    }
+  }
+
+  //模板和影响生成结果的配置，任意一项变化时所有的表都需要重新生成
+  private String generationSalt() {
+    return Joiner.on(',').join(templates.hash(), packageName, options.getDaoBatchSize(),
+                               options.getDaoFetchSize(), options.getDaoInChunkSize(),
+                               options.getCacheMaxSize(), options.getCacheExpireAfterWriteMillis(),
+                               options.isPrimitiveFields(),
+                               options.isDirtyTracking(),
+                               artifacts.stream().map(Artifact::getName)
+                                       .collect(Collectors.joining("|")));
+  }
+
+  //声明的finder只影响对应的表
+  private String tableSalt(String salt, Table table) {
+    return salt + "," + options.getFinders(table.getName());
+  }
+
+  public int getWrittenFiles() {
+    return report.getFilesWritten();
+  }
+
+  public int getUnchangedFiles() {
+    return report.getFilesUnchanged();
+  }
+
+  public int getDeletedFiles() {
+    return report.getFilesDeleted();
+  }
+
+  /**
+   * @return 最近一次生成的统计
+   */
+  public GenerationReport getReport() {
+    return report;
+  }
+
+  private void writeReport(String reportFile) {
+    try {
+      File file = new File(reportFile);
+      if (file.getParentFile() != null) {
+        file.getParentFile().mkdirs();
+      }
+      Files.write(file.toPath(), report.toJson().getBytes(Charset.forName("UTF-8")));
+      LOGGER.info("Generation report written:" + file.getPath());
+    } catch (IOException e) {
+      LOGGER.warn("Failed to write generation report:" + reportFile, e);
+    }
+  }
+
+  private void saveState(DBFetcher fetcher, GenerationState state) {
+    //读取元数据出错时只返回了部分表，此时不能判断哪些表已经被删除
+    if (!fetcher.isComplete()) {
+      LOGGER.warn("Metadata fetch was incomplete, generation state not saved");
+      return;
+    }
+    if (options.isDeleteDroppedTables()) {
+      for (String tableName : state.droppedTables()) {
+        Table table = Table.create(tableName, null);
+        for (Artifact artifact : artifacts) {
+          File file = new File(getSourceFileName(table, artifact));
+          if (file.delete()) {
+            listener.onFileDeleted(file.getPath());
+            LOGGER.info("Class File deleted:" + file.getPath());
+          }
+        }
+      }
+    }
+    state.save();
+  }
+
+  private boolean needsGeneration(GenerationState state, String salt, Table table) {
+    if (state == null) {
+      return true;
+    }
+    boolean changed = state.update(table.getName(),
+                                  GenerationState.fingerprint(table, tableSalt(salt, table)));
+    if (changed || artifacts.stream()
+            .anyMatch(a -> !new File(getSourceFileName(table, a)).exists())) {
+      return true;
+    }
+    listener.onTableSkipped(table.getName());
+    LOGGER.debug("Table:{} unchanged, skipped", table.getName());
+    return false;
   }
 
   private void execute(Table table) {
+    render(table).forEach(this::write);
+  }
+
+  @VisibleForTesting
+  List<GeneratedFile> render(Table table) {
+    return render(table, null);
+  }
+
+  /**
+   * @param table      表
+   * @param userSource 已经读取的用户代码，为null时从已有的文件中读取
+   */
+  @VisibleForTesting
+  List<GeneratedFile> render(Table table, String userSource) {
+    List<GeneratedFile> files = new ArrayList<>(artifacts.size());
+    for (Artifact artifact : artifacts) {
+      files.add(render(table, artifact, userSource));
+    }
+    return files;
+  }
+
+  @VisibleForTesting
+  int getArtifactCount() {
+    return artifacts.size();
+  }
+
+  private GeneratedFile render(Table table, Artifact artifact, String userSource) {
     try {
-      StringBuffer userSource = readUserSourceCode(table);
-      Template template = handlebars.compileInline(tpl);
-      String code = template.apply(ImmutableMap.of("table", table,
-                                                   "package", packageName,
-                                                   "userSource", userSource.toString()));
-      createFile(table, code);
+      long start = System.nanoTime();
+      Map<String, Object> context = new HashMap<>();
+      context.put("table", table);
+      context.put("package", packageName);
+      context.put("options", options);
+      if (artifact.isUserSource()) {
+        context.put("userSource",
+                    userSource != null ? userSource : readUserSourceCode(table).toString());
+      }
+      String code = templates.get(artifact.getName()).apply(context);
+      String fileName = getSourceFileName(table, artifact);
+      listener.onFileRendered(table.getName(), fileName, System.nanoTime() - start);
+      return new GeneratedFile(table, fileName, code);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @VisibleForTesting
+  void write(GeneratedFile generated) {
+    try {
+      createFile(generated.getTable(), generated.getFileName(), generated.getCode());
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
@@ -133,7 +457,7 @@ public class Generator {
           case "file":
             return readFromFileURL(url);
           case "jar":
-            return readFromJarURL(url);
+            return readFromJarURL(url, fileName);
           default:
             throw new IllegalStateException("Invalid url protocol: " + prot);
         }
@@ -160,17 +484,34 @@ public class Generator {
     }
   }
 
-  private void createFile(Table table, String code) throws Exception {
+  private void createFile(Table table, String fileName, String code) throws Exception {
     createPackage(srcFolderPath, packageName);
-    String fileName = this.getSourceFileName(table);
+    long start = System.nanoTime();
     File file = new File(fileName);
-    FileWriter writer = new FileWriter(file);
-    writer.write(code);
-    writer.close();
+    byte[] bytes = code.getBytes(Charset.defaultCharset());
+    //内容没有变化时不重写文件，避免修改时间变化导致IDE和增量编译重新编译
+    if (file.exists() && file.length() == bytes.length
+        && Arrays.equals(Files.readAllBytes(file.toPath()), bytes)) {
+      listener.onFileUnchanged(table.getName(), fileName, System.nanoTime() - start);
+      LOGGER.debug("Class File unchanged:" + file.getPath());
+      return;
+    }
+    Files.write(file.toPath(), bytes);
+    listener.onFileWritten(table.getName(), fileName, bytes.length, System.nanoTime() - start);
     LOGGER.info("Class File created:" + file.getPath());
   }
 
   private String getSourceFileName(Table table) {
+    return getSourceFileName(table, Artifact.DOMAIN);
+  }
+
+  private String getSourceFileName(Table table, Artifact artifact) {
+    String fileName = getPackageFolder() + table.getUpperCamelName()
+                      + artifact.getClassSuffix() + ".java";
+    return fileName;
+  }
+
+  private String getPackageFolder() {
     String path = "";
     if (!Strings.isNullOrEmpty(packageName)) {
       path = CharMatcher.anyOf(".").replaceFrom(this.packageName, "/") + "/";
@@ -178,12 +519,11 @@ public class Generator {
     if (!Strings.isNullOrEmpty(this.srcFolderPath)) {
       path = this.srcFolderPath + "/" + path;
     }
-
-    String fileName = path + table.getUpperCamelName() + ".java";
-    return fileName;
+    return path;
   }
 
-  private StringBuffer readUserSourceCode(Table table) {
+  @VisibleForTesting
+  StringBuffer readUserSourceCode(Table table) {
     StringBuffer userSourceBuf = new StringBuffer();
     String fileName = this.getSourceFileName(table);
     File file = new File(fileName);
@@ -198,38 +538,18 @@ public class Generator {
 
     try {
       LOGGER.debug("Reading file :{}", file.getName());
-      String contents =
-              com.google.common.io.Files.asByteSource(file).asCharSource(Charset.defaultCharset())
-                      .read();
-
-      int startIndex = contents.indexOf(IS_COMMENT_START);
-      int endIndex = contents.indexOf(IS_COMMENT_END);
-      LOGGER.debug("Start index:{} End index:{}", startIndex, endIndex);
-      if (startIndex != -1 && endIndex != -1) {
-        userSourceBuf.append(contents.substring(startIndex, endIndex));
-        userSourceBuf.append(COMMENT_END + "\n\n");
-      }
-      // save the imports
-      List<String> lines = com.google.common.io.Files.readLines(file, Charset.defaultCharset());
-      for (String line : lines) {
-        if (line.startsWith("import")) {
-          String[] tokens = Iterables.toArray(Splitter.on(" ").split(line), String.class);
-          if (tokens.length > 2) {
-            String iClass = tokens[1] + " " + tokens[2].substring(0, tokens[2].length() - 1);
-            LOGGER.debug("iClass:{}", iClass);
-            if (!table.getImports().contains(iClass)) {
-              table.addImport(iClass);
-            }
-          } else {
-            String iClass = tokens[1].substring(0, tokens[1].length() - 1);
-            LOGGER.debug("iClass:{}", iClass);
-            if (!table.getImports().contains(iClass)) {
-              table.addImport(iClass);
-            }
-          }
+      UserSource userSource = UserSource.scan(file.toPath(), IS_COMMENT_START, IS_COMMENT_END);
+      LOGGER.debug("Preserved blocks:{}", userSource.getBlocks().size());
+      //只在区域之间换行，没有修改过的文件再次生成时内容不变
+      for (String block : userSource.getBlocks()) {
+        if (userSourceBuf.length() > 0) {
+          userSourceBuf.append("\n\n");
         }
+        userSourceBuf.append(block);
+        userSourceBuf.append(COMMENT_END);
       }
-
+      // save the imports
+      userSource.getImports().forEach(table::addImport);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
@@ -250,7 +570,7 @@ public class Generator {
     return cl;
   }
 
-  private String readFromJarURL(URL url) {
+  private String readFromJarURL(URL url, String resourceName) {
     try {
       JarURLConnection jarURLConnection = (JarURLConnection) url.openConnection();
       JarFile jarFile = jarURLConnection.getJarFile();
@@ -259,7 +579,7 @@ public class Generator {
       while (entries.hasMoreElements()) {
         JarEntry jarEntry = entries.nextElement();
         String fileName = jarEntry.getName();
-        if (fileName.equals(tplFile)) {
+        if (fileName.equals(resourceName)) {
           return new String(ByteStreams.toByteArray(jarFile.getInputStream(jarEntry)));
         }
       }
@@ -0,0 +1,96 @@
+package com.edgar.jdbc.codegen.gen;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Template;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一组命名的模板，每个模板只编译一次.
+ * <p>
+ * 编译后的模板按照名称和内容的哈希缓存，同一个名称再次加入相同的内容时直接使用缓存，内容变化时才重新编译.
+ */
+public class TemplateSet {
+
+  private final Handlebars handlebars;
+
+  private final Map<String, CompiledTemplate> templates = new LinkedHashMap<>();
+
+  public TemplateSet(Handlebars handlebars) {
+    this.handlebars = handlebars;
+  }
+
+  /**
+   * 加入一个模板.
+   *
+   * @param name   模板名称
+   * @param source 模板内容
+   * @return TemplateSet
+   */
+  public TemplateSet add(String name, String source) {
+    HashCode hash = Hashing.murmur3_128().hashString(source, StandardCharsets.UTF_8);
+    CompiledTemplate cached = templates.get(name);
+    if (cached != null && cached.hash.equals(hash)) {
+      return this;
+    }
+    try {
+      templates.put(name, new CompiledTemplate(hash, handlebars.compileInline(source)));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return this;
+  }
+
+  /**
+   * 获取编译好的模板.
+   *
+   * @param name 模板名称
+   * @return Template
+   */
+  public Template get(String name) {
+    CompiledTemplate compiled = templates.get(name);
+    if (compiled == null) {
+      throw new IllegalArgumentException("Unknown template: " + name);
+    }
+    return compiled.template;
+  }
+
+  public Set<String> names() {
+    return templates.keySet();
+  }
+
+  /**
+   * @return 所有模板内容的哈希，任意一个模板变化时都会变化
+   */
+  public String hash() {
+    if (templates.isEmpty()) {
+      return "";
+    }
+    List<HashCode> hashes = new ArrayList<>();
+    templates.forEach((name, compiled) -> {
+      hashes.add(Hashing.murmur3_128().hashString(name, StandardCharsets.UTF_8));
+      hashes.add(compiled.hash);
+    });
+    return Hashing.combineOrdered(hashes).toString();
+  }
+
+  private static class CompiledTemplate {
+    private final HashCode hash;
+
+    private final Template template;
+
+    private CompiledTemplate(HashCode hash, Template template) {
+      this.hash = hash;
+      this.template = template;
+    }
+  }
+}
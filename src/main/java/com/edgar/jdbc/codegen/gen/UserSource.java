@@ -0,0 +1,111 @@
+package com.edgar.jdbc.codegen.gen;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 已经存在的源文件中需要保留的内容：用户在START/END标记之间编写的代码和import.
+ * <p>
+ * 文件只读取一次，一次遍历同时找出所有的保留区域和import.
+ */
+class UserSource {
+
+  private static final String IMPORT = "import";
+
+  private final List<String> blocks;
+
+  private final Set<String> imports;
+
+  private UserSource(List<String> blocks, Set<String> imports) {
+    this.blocks = blocks;
+    this.imports = imports;
+  }
+
+  /**
+   * 扫描文件.
+   *
+   * @param file       源文件
+   * @param startToken 保留区域的开始标记
+   * @param endToken   保留区域的结束标记
+   * @return UserSource
+   */
+  static UserSource scan(Path file, String startToken, String endToken) throws IOException {
+    String contents = new String(Files.readAllBytes(file), Charset.defaultCharset());
+    return scan(contents, startToken, endToken);
+  }
+
+  static UserSource scan(String contents, String startToken, String endToken) {
+    List<String> blocks = new ArrayList<>();
+    Set<String> imports = new LinkedHashSet<>();
+    int blockStart = -1;
+    int lineStart = 0;
+    int length = contents.length();
+    while (lineStart < length) {
+      int lineEnd = contents.indexOf('\n', lineStart);
+      if (lineEnd == -1) {
+        lineEnd = length;
+      }
+      int searchFrom = lineStart;
+      if (blockStart == -1) {
+        if (contents.startsWith(IMPORT, lineStart)) {
+          addImport(imports, contents, lineStart + IMPORT.length(), lineEnd);
+        }
+        int start = indexOf(contents, startToken, lineStart, lineEnd);
+        if (start != -1) {
+          blockStart = start;
+          searchFrom = start + startToken.length();
+        }
+      }
+      if (blockStart != -1) {
+        int end = indexOf(contents, endToken, searchFrom, lineEnd);
+        if (end != -1) {
+          blocks.add(contents.substring(blockStart, end));
+          blockStart = -1;
+        }
+      }
+      lineStart = lineEnd + 1;
+    }
+    return new UserSource(blocks, imports);
+  }
+
+  /**
+   * @return 保留区域，每个区域从开始标记开始，不包含结束标记
+   */
+  List<String> getBlocks() {
+    return blocks;
+  }
+
+  /**
+   * @return import的类,静态导入以"static "开头
+   */
+  Set<String> getImports() {
+    return imports;
+  }
+
+  private static void addImport(Set<String> imports, String contents, int from, int to) {
+    String imp = contents.substring(from, to).trim();
+    if (imp.endsWith(";")) {
+      imp = imp.substring(0, imp.length() - 1).trim();
+    }
+    if (!imp.isEmpty()) {
+      imports.add(imp);
+    }
+  }
+
+  //只在当前行内查找，避免每一行都搜索到文件末尾
+  private static int indexOf(String contents, String token, int from, int to) {
+    char first = token.charAt(0);
+    for (int i = from, max = to - token.length(); i <= max; i++) {
+      if (contents.charAt(i) == first && contents.startsWith(token, i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,99 @@
+package com.edgar.jdbc.codegen.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 批量读取与逐表读取的结果一致.
+ */
+public class BulkMetadataFetcherTest {
+
+  private static final String DB = "bulk";
+
+  private Connection conn;
+
+  @Before
+  public void setUp() throws Exception {
+    conn = TestDatabase.open(DB,
+                             "CREATE TABLE a_user (user_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                             + "user_name VARCHAR(64) NOT NULL COMMENT 'login name', "
+                             + "age INT DEFAULT 18, score DECIMAL(10, 2), active BOOLEAN, "
+                             + "created_on TIMESTAMP, birthday DATE, avatar BLOB, notes CLOB) "
+                             + "COMMENT 'users'",
+                             "CREATE UNIQUE INDEX uk_user_name ON a_user (user_name)",
+                             "CREATE INDEX idx_age_score ON a_user (age, score)",
+                             "CREATE TABLE a_order (order_no VARCHAR(32) PRIMARY KEY, "
+                             + "user_id BIGINT NOT NULL, amount DECIMAL(18, 0), small SMALLINT)",
+                             "CREATE INDEX idx_order_user ON a_order (user_id)",
+                             "CREATE TABLE b_line (order_no VARCHAR(32), line_no INT, "
+                             + "qty INT NOT NULL, PRIMARY KEY (order_no, line_no))",
+                             "CREATE TABLE c_log (message VARCHAR(100), logged_on TIMESTAMP)",
+                             "CREATE INDEX idx_logged_on ON c_log (logged_on)");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  @Test
+  public void testSameModels() throws Exception {
+    DBFetcher perTable = new DBFetcher(TestDatabase.options(DB).setTableNamePattern("a%"));
+    List<Table> expected = perTable.fetchTablesFromDb();
+    assertTrue(perTable.isComplete());
+    assertEquals(2, expected.size());
+    //主键、唯一索引和组合索引
+    assertEquals(3, expected.get(1).getIndexes().size());
+
+    DBFetcher bulk = new DBFetcher(TestDatabase.options(DB).setTableNamePattern("a%")
+                                           .setBulkFetch(true));
+    List<Table> tables = bulk.fetchTablesFromDb();
+    assertTrue(bulk.isComplete());
+    assertEquals(describe(expected), describe(tables));
+  }
+
+  @Test
+  public void testCompositePk() throws Exception {
+    assertSameFailure("b%");
+  }
+
+  @Test
+  public void testNoPk() throws Exception {
+    assertSameFailure("c%");
+  }
+
+  @Test
+  public void testFailureStopsAtTheSameTable() throws Exception {
+    assertSameFailure(null);
+  }
+
+  /**
+   * 只支持单列主键，两种方式读取到同一个表时都失败，失败之前读取的表相同.
+   */
+  private void assertSameFailure(String tableNamePattern) {
+    DBFetcher perTable = new DBFetcher(TestDatabase.options(DB)
+                                               .setTableNamePattern(tableNamePattern));
+    List<Table> expected = perTable.fetchTablesFromDb();
+    assertFalse(perTable.isComplete());
+
+    DBFetcher bulk = new DBFetcher(TestDatabase.options(DB).setTableNamePattern(tableNamePattern)
+                                           .setBulkFetch(true));
+    List<Table> tables = bulk.fetchTablesFromDb();
+    assertFalse(bulk.isComplete());
+    assertEquals(describe(expected), describe(tables));
+  }
+
+  //Table没有equals，toString包括所有的字段和索引
+  private static List<String> describe(List<Table> tables) {
+    return tables.stream().map(Table::toString).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,78 @@
+package com.edgar.jdbc.codegen.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DBFetcher并行读取的单元测试.
+ */
+public class DBFetcherTest {
+
+  private static final int TABLES = 40;
+
+  private Connection conn;
+
+  @Before
+  public void setUp() throws Exception {
+    conn = TestDatabase.open("fetcher");
+    try (Statement stmt = conn.createStatement()) {
+      for (int i = 0; i < TABLES; i++) {
+        stmt.execute("CREATE TABLE " + name(i) + " (id BIGINT PRIMARY KEY, name VARCHAR(20), "
+                     + "code INT NOT NULL, UNIQUE KEY uk_code" + i + " (code))");
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  @Test
+  public void testParallelFetch() throws Exception {
+    DBFetcher fetcher = new DBFetcher(TestDatabase.options("fetcher").setFetchParallelism(4));
+    List<Table> tables = fetcher.fetchTablesFromDb();
+    assertTrue(fetcher.isComplete());
+    assertEquals(TABLES, tables.size());
+    for (int i = 0; i < TABLES; i++) {
+      assertEquals(name(i), tables.get(i).getName());
+      assertEquals(3, tables.get(i).getColumns().size());
+    }
+    assertEquals(1, TestDatabase.sessions(conn));
+  }
+
+  @Test
+  public void testConsumerFailureClosesConnections() throws Exception {
+    DBFetcher fetcher = new DBFetcher(TestDatabase.options("fetcher").setFetchParallelism(4));
+    AtomicInteger consumed = new AtomicInteger();
+    try {
+      fetcher.fetchTablesFromDb(table -> {
+        if (consumed.incrementAndGet() == 1) {
+          throw new IllegalStateException("consumer failed");
+        }
+      });
+      fail("consumer failure is rethrown");
+    } catch (IllegalStateException e) {
+      assertEquals("consumer failed", e.getMessage());
+    }
+    assertFalse(fetcher.isComplete());
+    assertEquals(1, consumed.get());
+    //正在读取的线程持有的连接也要关闭
+    assertEquals(1, TestDatabase.sessions(conn));
+  }
+
+  private static String name(int i) {
+    return String.format("t%02d", i);
+  }
+}
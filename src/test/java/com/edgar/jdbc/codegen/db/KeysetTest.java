@@ -0,0 +1,90 @@
+package com.edgar.jdbc.codegen.db;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Keyset的单元测试.
+ */
+public class KeysetTest {
+
+  @Test
+  public void testPrimaryKey() {
+    Keyset keyset = createTable().getKeysets().get(0);
+    assertEquals("UserId", keyset.getUpperCamelName());
+    assertEquals("SELECT `user_id`, `tenant_id`, `code`, `name` FROM `user` "
+                 + "ORDER BY `user_id` LIMIT ?", keyset.getFirstPageSql());
+    assertEquals("SELECT `user_id`, `tenant_id`, `code`, `name` FROM `user` "
+                 + "WHERE `user_id` > ? ORDER BY `user_id` LIMIT ?", keyset.getNextPageSql());
+    assertEquals("0", keyset.getParamIndexes());
+  }
+
+  @Test
+  public void testCompositeKey() {
+    List<Keyset> keysets = createTable().getKeysets();
+    //可以为null的唯一索引不能用于分页
+    assertEquals(2, keysets.size());
+    Keyset keyset = keysets.get(1);
+    assertEquals("TenantIdAndCode", keyset.getUpperCamelName());
+    assertEquals("SELECT `user_id`, `tenant_id`, `code`, `name` FROM `user` "
+                 + "WHERE `tenant_id` > ? OR (`tenant_id` = ? AND `code` > ?) "
+                 + "ORDER BY `tenant_id`, `code` LIMIT ?", keyset.getNextPageSql());
+    assertEquals("0, 0, 1", keyset.getParamIndexes());
+  }
+
+  @Test
+  public void testThreeColumns() {
+    Table table = createTable();
+    Index index = Index.create("uk_tenant_code_user", true);
+    index.addColumn("tenant_id");
+    index.addColumn("code");
+    index.addColumn("user_id");
+    table.addIndex(index);
+    Keyset keyset = table.getKeysets().get(2);
+    assertEquals("SELECT `user_id`, `tenant_id`, `code`, `name` FROM `user` "
+                 + "WHERE `tenant_id` > ? OR (`tenant_id` = ? AND `code` > ?) "
+                 + "OR (`tenant_id` = ? AND `code` = ? AND `user_id` > ?) "
+                 + "ORDER BY `tenant_id`, `code`, `user_id` LIMIT ?", keyset.getNextPageSql());
+    assertEquals("0, 0, 1, 0, 1, 2", keyset.getParamIndexes());
+  }
+
+  @Test
+  public void testIdentifierQuote() {
+    Table table = createTable();
+    table.setIdentifierQuote("\"");
+    assertEquals("SELECT \"user_id\", \"tenant_id\", \"code\", \"name\" FROM \"user\" "
+                 + "WHERE \"user_id\" > ? ORDER BY \"user_id\" LIMIT ?",
+                 table.getKeysets().get(0).getNextPageSql());
+  }
+
+  private static Table createTable() {
+    Table table = Table.create("user", null);
+    table.addColumn(column("user_id", Types.BIGINT, ParameterType.LONG, false, true));
+    table.addColumn(column("tenant_id", Types.INTEGER, ParameterType.INTEGER, false, false));
+    table.addColumn(column("code", Types.VARCHAR, ParameterType.STRING, false, false));
+    table.addColumn(column("name", Types.VARCHAR, ParameterType.STRING, true, false));
+    Index tenantCode = Index.create("uk_tenant_code", true);
+    tenantCode.addColumn("tenant_id");
+    tenantCode.addColumn("code");
+    table.addIndex(tenantCode);
+    Index name = Index.create("uk_name", true);
+    name.addColumn("name");
+    table.addIndex(name);
+    return table;
+  }
+
+  private static Column column(String name, int type, ParameterType parameterType,
+                               boolean nullable, boolean primary) {
+    return Column.builder()
+            .setName(name)
+            .setType(type)
+            .setParameterType(parameterType)
+            .setNullable(nullable)
+            .setPrimary(primary)
+            .build();
+  }
+}
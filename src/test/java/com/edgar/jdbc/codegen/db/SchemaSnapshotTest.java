@@ -0,0 +1,186 @@
+package com.edgar.jdbc.codegen.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * SchemaSnapshot的单元测试.
+ */
+public class SchemaSnapshotTest {
+
+  private Path dir;
+
+  private SchemaSnapshot snapshot;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = Files.createTempDirectory("codegen-snapshot");
+    snapshot = new SchemaSnapshot(TestDatabase.options("snapshot")
+                                          .setSnapshotDir(dir.toString()));
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    List<Table> tables = Arrays.asList(userAccount(), Table.create("empty", null));
+    snapshot.save("fp", tables);
+    List<Table> loaded = snapshot.load("fp");
+    assertNotNull(loaded);
+    assertEquals(tables.size(), loaded.size());
+    for (int i = 0; i < tables.size(); i++) {
+      assertTableEquals(tables.get(i), loaded.get(i));
+    }
+  }
+
+  @Test
+  public void testStaleFingerprint() throws Exception {
+    snapshot.save("fp", Arrays.asList(userAccount()));
+    assertNull(snapshot.load("changed"));
+    assertNotNull(snapshot.load("fp"));
+  }
+
+  @Test
+  public void testMissingFile() {
+    assertNull(snapshot.load("fp"));
+  }
+
+  @Test
+  public void testBadMagic() throws Exception {
+    snapshot.save("fp", Arrays.asList(userAccount()));
+    overwrite(0x12345678, 5);
+    assertNull(snapshot.load("fp"));
+  }
+
+  @Test
+  public void testUnknownVersion() throws Exception {
+    snapshot.save("fp", Arrays.asList(userAccount()));
+    overwrite(0x4a434753, 4);
+    assertNull(snapshot.load("fp"));
+    overwrite(0x4a434753, 6);
+    assertNull(snapshot.load("fp"));
+  }
+
+  @Test
+  public void testCorruptFile() throws Exception {
+    snapshot.save("fp", Arrays.asList(userAccount()));
+    Files.write(file(), new byte[]{1, 2, 3});
+    assertNull(snapshot.load("fp"));
+  }
+
+  @Test
+  public void testFingerprint() throws Exception {
+    try (Connection conn = TestDatabase.open("snapshot",
+                                             "CREATE TABLE a (id BIGINT PRIMARY KEY, "
+                                             + "name VARCHAR(20))")) {
+      String fingerprint = snapshot.fingerprint(conn);
+      assertEquals(fingerprint, snapshot.fingerprint(conn));
+      try (Statement stmt = conn.createStatement()) {
+        stmt.execute("CREATE INDEX idx_name ON a (name)");
+      }
+      assertNotEquals(fingerprint, snapshot.fingerprint(conn));
+    }
+  }
+
+  /**
+   * 覆盖快照文件的头部.
+   */
+  private void overwrite(int magic, int version) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(
+            new GZIPOutputStream(Files.newOutputStream(file())))) {
+      out.writeInt(magic);
+      out.writeInt(version);
+      out.writeUTF("fp");
+      out.writeInt(0);
+    }
+  }
+
+  private Path file() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      List<Path> snapshots = files.collect(Collectors.toList());
+      assertEquals(1, snapshots.size());
+      return snapshots.get(0);
+    }
+  }
+
+  private static Table userAccount() {
+    Table table = Table.create("user_account", "users");
+    table.setCreateTime("2020-01-02 03:04:05");
+    table.setUpdateTime(null);
+    table.setIdentifierQuote("\"");
+    table.addColumn(Column.builder().setName("user_id").setSize(19).setType(Types.BIGINT)
+                            .setParameterType(ParameterType.LONG).setPrimary(true)
+                            .setAutoInc(true).setRemarks("id").build());
+    table.addColumn(Column.builder().setName("user_name").setSize(64).setType(Types.VARCHAR)
+                            .setParameterType(ParameterType.STRING).setDefaultValue("''")
+                            .build());
+    table.addColumn(Column.builder().setName("score").setSize(10).setDecimalDigits(2)
+                            .setType(Types.DECIMAL).setParameterType(ParameterType.BIGDECIMAL)
+                            .setNullable(true).build());
+    table.addColumn(Column.builder().setName("version").setSize(10).setType(Types.INTEGER)
+                            .setParameterType(ParameterType.INTEGER).setVersion(true).build());
+    table.addColumn(Column.builder().setName("secret").setSize(255).setType(Types.VARCHAR)
+                            .setParameterType(ParameterType.STRING).setIgnore(true)
+                            .setNullable(true).build());
+    Index index = Index.create("uk_user_name", true);
+    index.addColumn("user_name");
+    index.setCardinality(1000);
+    table.addIndex(index);
+    index = Index.create("idx_score_version", false);
+    index.addColumn("score");
+    index.addColumn("version");
+    table.addIndex(index);
+    return table;
+  }
+
+  private static void assertTableEquals(Table expected, Table actual) {
+    assertEquals(expected.getName(), actual.getName());
+    assertEquals(expected.getRemarks(), actual.getRemarks());
+    assertEquals(expected.isIgnore(), actual.isIgnore());
+    assertEquals(expected.getCreateTime(), actual.getCreateTime());
+    assertEquals(expected.getUpdateTime(), actual.getUpdateTime());
+    assertEquals(expected.getIdentifierQuote(), actual.getIdentifierQuote());
+    assertEquals(expected.getColumns().size(), actual.getColumns().size());
+    for (int i = 0; i < expected.getColumns().size(); i++) {
+      Column column = expected.getColumns().get(i);
+      Column loaded = actual.getColumns().get(i);
+      assertEquals(column.getName(), loaded.getName());
+      assertEquals(column.getSize(), loaded.getSize());
+      assertEquals(column.getDefaultValue(), loaded.getDefaultValue());
+      assertEquals(column.isNullable(), loaded.isNullable());
+      assertEquals(column.isAutoInc(), loaded.isAutoInc());
+      assertEquals(column.isIgnore(), loaded.isIgnore());
+      assertEquals(column.isPrimary(), loaded.isPrimary());
+      assertEquals(column.isVersion(), loaded.isVersion());
+      assertEquals(column.getType(), loaded.getType());
+      assertEquals(column.getDecimalDigits(), loaded.getDecimalDigits());
+      assertEquals(column.getParameterType(), loaded.getParameterType());
+      assertEquals(column.getRemarks(), loaded.getRemarks());
+    }
+    assertEquals(expected.getIndexes().size(), actual.getIndexes().size());
+    for (int i = 0; i < expected.getIndexes().size(); i++) {
+      Index index = expected.getIndexes().get(i);
+      Index loaded = actual.getIndexes().get(i);
+      assertEquals(index.getName(), loaded.getName());
+      assertEquals(index.isUnique(), loaded.isUnique());
+      assertEquals(index.getCardinality(), loaded.getCardinality());
+      assertEquals(index.getColumns(), loaded.getColumns());
+    }
+  }
+}
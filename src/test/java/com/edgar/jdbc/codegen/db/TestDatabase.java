@@ -0,0 +1,54 @@
+package com.edgar.jdbc.codegen.db;
+
+import com.edgar.jdbc.codegen.gen.CodegenOptions;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 测试使用的H2内存数据库，使用MySQL模式并且把未引用的名称保存为小写.
+ */
+public class TestDatabase {
+
+  private TestDatabase() {
+  }
+
+  public static String url(String name) {
+    return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+  }
+
+  /**
+   * 打开连接并执行建表语句，连接关闭后数据库仍然保留，直到执行DROP ALL OBJECTS.
+   */
+  public static Connection open(String name, String... ddl) throws SQLException {
+    Connection conn = DriverManager.getConnection(url(name), "sa", "");
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute("DROP ALL OBJECTS");
+      for (String sql : ddl) {
+        stmt.execute(sql);
+      }
+    }
+    return conn;
+  }
+
+  public static CodegenOptions options(String name) {
+    return new CodegenOptions().setJdbcUrl(url(name))
+            .setDriverClass("org.h2.Driver")
+            .setUsername("sa")
+            .setPassword("");
+  }
+
+  /**
+   * @return 数据库当前打开的连接数
+   */
+  public static int sessions(Connection conn) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS")) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+}
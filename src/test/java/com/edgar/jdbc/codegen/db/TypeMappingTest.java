@@ -0,0 +1,73 @@
+package com.edgar.jdbc.codegen.db;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.sql.Types;
+
+/**
+ * TypeMapping的单元测试.
+ */
+public class TypeMappingTest {
+
+  @Test
+  public void testLegacy() {
+    TypeMapping mapping = TypeMapping.legacy();
+    assertEquals(ParameterType.INTEGER, mapping.resolve("t", "c", Types.SMALLINT, 5, 0));
+    assertEquals(ParameterType.BIGDECIMAL, mapping.resolve("t", "c", Types.DOUBLE, 22, 0));
+    assertEquals(ParameterType.DATE, mapping.resolve("t", "c", Types.TIMESTAMP, 19, 0));
+    assertEquals(ParameterType.OBJECT, mapping.resolve("t", "c", Types.BLOB, 0, 0));
+    //legacy不放宽UNSIGNED列
+    assertEquals(ParameterType.INTEGER, mapping.resolve("t", "c", Types.INTEGER, 10, 0, true));
+  }
+
+  @Test
+  public void testPrecise() {
+    TypeMapping mapping = TypeMapping.precise();
+    assertEquals(ParameterType.SHORT, mapping.resolve("t", "c", Types.SMALLINT, 5, 0));
+    assertEquals(ParameterType.BYTE, mapping.resolve("t", "c", Types.TINYINT, 3, 0));
+    assertEquals(ParameterType.INTEGER, mapping.resolve("t", "c", Types.DECIMAL, 9, 0));
+    assertEquals(ParameterType.LONG, mapping.resolve("t", "c", Types.DECIMAL, 18, 0));
+    assertEquals(ParameterType.BIGDECIMAL, mapping.resolve("t", "c", Types.DECIMAL, 19, 0));
+    assertEquals(ParameterType.BIGDECIMAL, mapping.resolve("t", "c", Types.DECIMAL, 9, 2));
+    assertEquals(ParameterType.LOCALDATE, mapping.resolve("t", "c", Types.DATE, 10, 0));
+    assertEquals(ParameterType.INSTANT, mapping.resolve("t", "c", Types.TIMESTAMP, 19, 0));
+    assertEquals(ParameterType.BYTES, mapping.resolve("t", "c", Types.BLOB, 0, 0));
+  }
+
+  @Test
+  public void testPreciseUnsigned() {
+    TypeMapping mapping = TypeMapping.precise();
+    assertEquals(ParameterType.SHORT, mapping.resolve("t", "c", Types.TINYINT, 3, 0, true));
+    assertEquals(ParameterType.INTEGER, mapping.resolve("t", "c", Types.SMALLINT, 5, 0, true));
+    assertEquals(ParameterType.LONG, mapping.resolve("t", "c", Types.INTEGER, 10, 0, true));
+    assertEquals(ParameterType.BIGDECIMAL, mapping.resolve("t", "c", Types.BIGINT, 20, 0, true));
+    assertEquals(ParameterType.STRING, mapping.resolve("t", "c", Types.VARCHAR, 10, 0, true));
+  }
+
+  @Test
+  public void testPrecedence() {
+    TypeMapping mapping = TypeMapping.precise()
+            .map(Types.INTEGER, ParameterType.LONG)
+            .override("t", "c", ParameterType.STRING);
+    //字段覆盖优先于SQL类型覆盖
+    assertEquals(ParameterType.STRING, mapping.resolve("t", "c", Types.INTEGER, 10, 0));
+    assertEquals(ParameterType.STRING, mapping.resolve("t", "c", Types.INTEGER, 10, 0, true));
+    //SQL类型覆盖优先于UNSIGNED放宽和默认映射
+    assertEquals(ParameterType.LONG, mapping.resolve("t", "d", Types.INTEGER, 10, 0));
+    assertEquals(ParameterType.LONG, mapping.resolve("t", "d", Types.INTEGER, 10, 0, true));
+    assertEquals(ParameterType.SHORT, mapping.resolve("t", "d", Types.SMALLINT, 5, 0));
+    assertEquals(ParameterType.INTEGER, mapping.resolve("u", "c", Types.SMALLINT, 5, 0, true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOverrideList() {
+    TypeMapping.precise().override("t", "c", ParameterType.LIST);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMapNull() {
+    TypeMapping.precise().map(Types.INTEGER, null);
+  }
+}
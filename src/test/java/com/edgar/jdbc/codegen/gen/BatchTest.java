@@ -0,0 +1,126 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.invoke;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 生成的Batch在H2数据库上的单元测试.
+ */
+public class BatchTest {
+
+  private static final String DB = "batch";
+
+  private static final String DDL = "CREATE TABLE event ("
+                                    + "event_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                                    + "happened_at TIMESTAMP(9) NOT NULL, updated_at TIMESTAMP(9), "
+                                    + "event_day DATE NOT NULL, amount INT NOT NULL, qty INT, "
+                                    + "note VARCHAR(20))";
+
+  private static final String SELECT = "SELECT event_id, happened_at, updated_at, event_day, "
+                                       + "amount, qty, note FROM event";
+
+  private static GeneratedClasses classes;
+
+  private Connection conn;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    try (Connection conn = TestDatabase.open(DB, DDL)) {
+      classes = GeneratedClasses.compile(new CodegenOptions().setGenerateBatch(true),
+                                         GeneratedClasses.fetch(DB, "event"));
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    conn = TestDatabase.open(DB, DDL,
+                             "INSERT INTO event (happened_at, updated_at, event_day, amount, qty, "
+                             + "note) VALUES ('2020-01-02 03:04:05.123456789', "
+                             + "'2020-01-03 00:00:00.000000001', '2020-01-02', 1, 10, 'a')",
+                             "INSERT INTO event (happened_at, updated_at, event_day, amount, qty, "
+                             + "note) VALUES ('1969-12-31 23:59:59.999999999', NULL, "
+                             + "'1969-12-31', -2, NULL, NULL)",
+                             "INSERT INTO event (happened_at, updated_at, event_day, amount, qty, "
+                             + "note) VALUES ('2021-06-30 12:00:00', NULL, '2021-06-30', 0, 0, '')");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Object batch = classes.newInstance("EventBatch", 10);
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery(SELECT + " ORDER BY event_id")) {
+      assertEquals(3, invoke(batch, "fill", rs));
+    }
+    assertEquals(456789, invoke(batch, "getHappenedAtNanos", 0));
+    assertEquals(1, invoke(batch, "getUpdatedAtNanos", 0));
+    assertEquals(999999, invoke(batch, "getHappenedAtNanos", 1));
+    assertEquals(true, invoke(batch, "isUpdatedAtNull", 1));
+    assertEquals(true, invoke(batch, "isQtyNull", 1));
+    assertEquals(false, invoke(batch, "isQtyNull", 2));
+    assertEquals(0, invoke(batch, "getHappenedAtNanos", 2));
+
+    invoke(batch, "insertInto", conn, 2);
+    try (Statement stmt = conn.createStatement();
+         ResultSet original = stmt.executeQuery(SELECT + " WHERE event_id <= 3 ORDER BY event_id");
+         Statement copyStmt = conn.createStatement();
+         ResultSet copy = copyStmt.executeQuery(SELECT + " WHERE event_id > 3 ORDER BY event_id")) {
+      for (int row = 0; row < 3; row++) {
+        assertTrue(original.next());
+        assertTrue(copy.next());
+        for (int i = 2; i <= 7; i++) {
+          assertEquals("row " + row + " column " + i, original.getObject(i), copy.getObject(i));
+        }
+      }
+      assertFalse(copy.next());
+    }
+  }
+
+  @Test
+  public void testFillStopsWhenFull() throws Exception {
+    Object batch = classes.newInstance("EventBatch", 2);
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery(SELECT + " ORDER BY event_id")) {
+      assertEquals(2, invoke(batch, "fill", rs));
+      assertEquals(true, invoke(batch, "isFull"));
+      invoke(batch, "clear");
+      assertEquals(1, invoke(batch, "fill", rs));
+      assertEquals("", invoke(batch, "getNote", 0));
+    }
+  }
+
+  @Test
+  public void testNullInNotNullTemporalColumn() throws Exception {
+    Object batch = classes.newInstance("EventBatch", 10);
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery(
+                 SELECT + " WHERE event_id = 1 UNION ALL SELECT event_id, "
+                 + "CAST(NULL AS TIMESTAMP), updated_at, event_day, amount, qty, note "
+                 + "FROM event WHERE event_id = 2")) {
+      invoke(batch, "fill", rs);
+      fail("null in a NOT NULL column");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("happened_at"));
+    }
+    //出错的行没有加入
+    assertEquals(1, invoke(batch, "size"));
+  }
+}
@@ -0,0 +1,250 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.set;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.edgar.jdbc.codegen.db.Column;
+import com.edgar.jdbc.codegen.db.ParameterType;
+import com.edgar.jdbc.codegen.db.Table;
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import com.edgar.jdbc.codegen.db.TypeMapping;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 生成的Binder的单元测试，检查使用的setXXX方法以及null使用列的JDBC类型绑定.
+ */
+public class BinderTest {
+
+  private static final String DB = "binder";
+
+  private static final String DDL = "CREATE TABLE item (item_id BIGINT PRIMARY KEY, "
+                                    + "name VARCHAR(20) NOT NULL, qty INT, small SMALLINT, "
+                                    + "price DOUBLE, ratio REAL, amount DECIMAL(10, 2), "
+                                    + "active BOOLEAN, created_on TIMESTAMP, birthday DATE, "
+                                    + "grade VARCHAR(1), payload VARBINARY(16))";
+
+  private static final Instant CREATED_ON = Timestamp.valueOf("2020-01-02 03:04:05").toInstant();
+
+  private static Table legacyTable;
+
+  private static Table preciseTable;
+
+  private static GeneratedClasses legacy;
+
+  private static GeneratedClasses precise;
+
+  private Connection conn;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    try (Connection conn = TestDatabase.open(DB, DDL)) {
+      legacyTable = GeneratedClasses.fetch(DB, "item");
+      legacy = GeneratedClasses.compile(new CodegenOptions().setGenerateBinder(true), legacyTable);
+      TypeMapping mapping = TypeMapping.precise().override("item", "grade", ParameterType.CHAR);
+      preciseTable = GeneratedClasses.fetch(TestDatabase.options(DB).setTypeMapping(mapping),
+                                            "item");
+      precise = GeneratedClasses.compile(new CodegenOptions().setGenerateBinder(true),
+                                         preciseTable);
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    conn = TestDatabase.open(DB, DDL);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  @Test
+  public void testLegacySetters() throws Exception {
+    Object item = legacy.newEntity("Item");
+    set(item, "ItemId", 1L);
+    set(item, "Name", "a");
+    set(item, "Qty", 0);
+    set(item, "Small", 2);
+    set(item, "Price", new BigDecimal("1.5"));
+    set(item, "Ratio", 2.5f);
+    set(item, "Amount", new BigDecimal("12.34"));
+    set(item, "Active", false);
+    set(item, "CreatedOn", Timestamp.from(CREATED_ON));
+    set(item, "Birthday", new java.util.Date(Timestamp.valueOf("2020-01-02 00:00:00").getTime()));
+    set(item, "Grade", "x");
+    set(item, "Payload", new byte[]{1, 2});
+
+    List<String> calls = new ArrayList<>();
+    legacy.invokeStatic("ItemBinder", "bindInsert", recording(calls), item);
+    assertEquals(Arrays.asList("setLong 1 1", "setString 2 a", "setInt 3 0", "setInt 4 2",
+                               "setBigDecimal 5 1.5", "setObject 6 2.5",
+                               "setBigDecimal 7 12.34", "setBoolean 8 false",
+                               "setTimestamp 9 2020-01-02 03:04:05.0",
+                               "setTimestamp 10 2020-01-02 00:00:00.0", "setString 11 x",
+                               "setObject 12 [1, 2]"),
+                 calls);
+  }
+
+  @Test
+  public void testPreciseSetters() throws Exception {
+    List<String> calls = new ArrayList<>();
+    precise.invokeStatic("ItemBinder", "bindInsert", recording(calls), preciseItem());
+    assertEquals(Arrays.asList("setLong 1 1", "setString 2 a", "setInt 3 0",
+                               "setShort 4 2", "setDouble 5 1.5", "setFloat 6 2.5",
+                               "setBigDecimal 7 12.34", "setBoolean 8 false",
+                               "setTimestamp 9 2020-01-02 03:04:05.0", "setDate 10 2020-01-02",
+                               "setString 11 x", "setBytes 12 [1, 2]"),
+                 calls);
+  }
+
+  @Test
+  public void testPrimitiveOverload() throws Exception {
+    List<String> calls = new ArrayList<>();
+    Class<?> binder = precise.load("ItemBinder");
+    binder.getMethod("bindQty", PreparedStatement.class, int.class, int.class)
+            .invoke(null, recording(calls), 3, 7);
+    binder.getMethod("bindActive", PreparedStatement.class, int.class, boolean.class)
+            .invoke(null, recording(calls), 8, true);
+    binder.getMethod("bindQty", PreparedStatement.class, int.class, Integer.class)
+            .invoke(null, recording(calls), 3, null);
+    assertEquals(Arrays.asList("setInt 3 7", "setBoolean 8 true", "setNull 3 4"), calls);
+  }
+
+  @Test
+  public void testNullsUseColumnType() throws Exception {
+    assertNullTypes(legacy, legacyTable);
+    assertNullTypes(precise, preciseTable);
+  }
+
+  @Test
+  public void testUpdateByPk() throws Exception {
+    Object item = precise.newEntity("Item");
+    set(item, "ItemId", 9L);
+    set(item, "Name", "b");
+    set(item, "Qty", 4);
+    List<String> calls = new ArrayList<>();
+    precise.invokeStatic("ItemBinder", "bindUpdateByPk", recording(calls), item);
+    assertEquals(12, calls.size());
+    assertEquals("setString 1 b", calls.get(0));
+    assertEquals("setInt 2 4", calls.get(1));
+    //主键是最后一个参数
+    assertEquals("setLong 12 9", calls.get(11));
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Object item = preciseItem();
+    try (PreparedStatement ps = conn.prepareStatement(
+            (String) precise.getStatic("Item", "INSERT_SQL"))) {
+      precise.invokeStatic("ItemBinder", "bindInsert", ps, item);
+      assertEquals(1, ps.executeUpdate());
+    }
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT * FROM item")) {
+      assertTrue(rs.next());
+      assertEquals(1L, rs.getLong("item_id"));
+      assertEquals(0, rs.getInt("qty"));
+      assertFalse(rs.wasNull());
+      assertEquals(2, rs.getShort("small"));
+      assertEquals(1.5d, rs.getDouble("price"), 0);
+      assertEquals(2.5f, rs.getFloat("ratio"), 0);
+      assertEquals(new BigDecimal("12.34"), rs.getBigDecimal("amount"));
+      assertFalse(rs.getBoolean("active"));
+      assertFalse(rs.wasNull());
+      assertEquals(CREATED_ON, rs.getTimestamp("created_on").toInstant());
+      assertEquals(Date.valueOf("2020-01-02"), rs.getDate("birthday"));
+      assertEquals("x", rs.getString("grade"));
+      assertArrayEquals(new byte[]{1, 2}, rs.getBytes("payload"));
+    }
+
+    Object empty = precise.newEntity("Item");
+    set(empty, "ItemId", 1L);
+    set(empty, "Name", "b");
+    try (PreparedStatement ps = conn.prepareStatement(
+            (String) precise.getStatic("Item", "UPDATE_BY_PK_SQL"))) {
+      precise.invokeStatic("ItemBinder", "bindUpdateByPk", ps, empty);
+      assertEquals(1, ps.executeUpdate());
+    }
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT * FROM item")) {
+      assertTrue(rs.next());
+      assertEquals("b", rs.getString("name"));
+      for (String column : new String[]{"qty", "small", "price", "ratio", "amount", "active",
+                                        "created_on", "birthday", "grade", "payload"}) {
+        assertNull(column, rs.getObject(column));
+      }
+    }
+  }
+
+  private static Object preciseItem() throws Exception {
+    Object item = precise.newEntity("Item");
+    set(item, "ItemId", 1L);
+    set(item, "Name", "a");
+    set(item, "Qty", 0);
+    set(item, "Small", (short) 2);
+    set(item, "Price", 1.5d);
+    set(item, "Ratio", 2.5f);
+    set(item, "Amount", new BigDecimal("12.34"));
+    set(item, "Active", false);
+    set(item, "CreatedOn", CREATED_ON);
+    set(item, "Birthday", LocalDate.of(2020, 1, 2));
+    set(item, "Grade", 'x');
+    set(item, "Payload", new byte[]{1, 2});
+    return item;
+  }
+
+  /**
+   * 只设置了主键和不能为null的列，其它参数使用列的JDBC类型绑定null，而不是字段的Java类型.
+   */
+  private static void assertNullTypes(GeneratedClasses classes, Table table) throws Exception {
+    Object item = classes.newEntity("Item");
+    set(item, "ItemId", 1L);
+    set(item, "Name", "a");
+    List<String> calls = new ArrayList<>();
+    classes.invokeStatic("ItemBinder", "bindInsert", recording(calls), item);
+    List<String> expected = new ArrayList<>(Arrays.asList("setLong 1 1", "setString 2 a"));
+    List<Column> columns = table.getInsertColumns();
+    for (int i = 2; i < columns.size(); i++) {
+      expected.add("setNull " + (i + 1) + " " + columns.get(i).getType());
+    }
+    assertEquals(expected, calls);
+    //SMALLINT在legacy中映射为Integer，绑定null时仍然使用SMALLINT
+    assertEquals("setNull 4 " + Types.SMALLINT, calls.get(3));
+  }
+
+  /**
+   * 记录setXXX的调用，每次调用记录为"方法名 参数序号 值".
+   */
+  private static PreparedStatement recording(List<String> calls) {
+    return (PreparedStatement) Proxy.newProxyInstance(
+            BinderTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+            (proxy, method, args) -> {
+              Object value = args[1] instanceof byte[] ? Arrays.toString((byte[]) args[1])
+                                                       : args[1];
+              calls.add(method.getName() + " " + args[0] + " " + value);
+              return null;
+            });
+  }
+}
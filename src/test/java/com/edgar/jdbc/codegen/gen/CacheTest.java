@@ -0,0 +1,221 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.get;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.invoke;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成的Cache在H2数据库上的单元测试.
+ */
+public class CacheTest {
+
+  private static final String DB = "cache";
+
+  private static final String DDL = "CREATE TABLE user_account ("
+                                    + "user_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                                    + "user_name VARCHAR(64) NOT NULL, age INT)";
+
+  private static GeneratedClasses classes;
+
+  private Connection conn;
+
+  private Object dao;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    try (Connection conn = TestDatabase.open(DB, DDL)) {
+      classes = GeneratedClasses.compile(new CodegenOptions().setGenerateCache(true)
+                                                 .setDirtyTracking(true),
+                                         GeneratedClasses.fetch(DB, "user_account"));
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    conn = TestDatabase.open(DB, DDL);
+    dao = classes.newEntity("UserAccountDao");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  @Test
+  public void testCounters() throws Exception {
+    insert(3);
+    Object cache = classes.newInstance("UserAccountCache", dao);
+    assertEquals("u0", get(invoke(cache, "findById", conn, 1L), "UserName"));
+    assertEquals("u0", get(invoke(cache, "findById", conn, 1L), "UserName"));
+    assertEquals(1L, invoke(cache, "hitCount"));
+    assertEquals(1L, invoke(cache, "missCount"));
+
+    assertEquals(3, ((Map<?, ?>) invoke(cache, "findByIds", conn,
+                                        Arrays.asList(1L, 2L, 3L, 4L))).size());
+    assertEquals(2L, invoke(cache, "hitCount"));
+    assertEquals(4L, invoke(cache, "missCount"));
+    //不存在的行不缓存
+    assertEquals(3L, invoke(cache, "size"));
+    assertNull(invoke(cache, "findById", conn, 4L));
+    assertEquals(0L, invoke(cache, "evictionCount"));
+  }
+
+  @Test
+  public void testLruEviction() throws Exception {
+    Object cache = classes.newInstance("UserAccountCache", dao, 64, 0L);
+    int segments = segments(cache);
+    //每个分段两个条目，1、1 + segments、1 + 2 * segments在同一个分段
+    cache = classes.newInstance("UserAccountCache", dao, 2 * segments, 0L);
+    insert(2 * segments + 1);
+    long first = 1;
+    long second = 1 + segments;
+    long third = 1 + 2 * segments;
+    invoke(cache, "findById", conn, first);
+    invoke(cache, "findById", conn, second);
+    assertNotNull(invoke(cache, "getIfPresent", first));
+    invoke(cache, "findById", conn, third);
+    assertEquals(1L, invoke(cache, "evictionCount"));
+    assertNotNull(invoke(cache, "getIfPresent", first));
+    assertNull(invoke(cache, "getIfPresent", second));
+    assertNotNull(invoke(cache, "getIfPresent", third));
+  }
+
+  @Test
+  public void testExpiry() throws Exception {
+    insert(1);
+    Object cache = classes.newInstance("UserAccountCache", dao, 100, 50L);
+    invoke(cache, "findById", conn, 1L);
+    assertNotNull(invoke(cache, "getIfPresent", 1L));
+    Thread.sleep(100);
+    assertNull(invoke(cache, "getIfPresent", 1L));
+    assertEquals(1L, invoke(cache, "evictionCount"));
+    assertEquals(0L, invoke(cache, "size"));
+    assertNotNull(invoke(cache, "findById", conn, 1L));
+    assertEquals(1L, invoke(cache, "size"));
+  }
+
+  @Test
+  public void testInvalidatedLoadIsNotCached() throws Exception {
+    insert(1);
+    Object cache = classes.newInstance("UserAccountCache", dao);
+    //读取的过程中主键失效
+    Connection invalidating = (Connection) Proxy.newProxyInstance(
+            CacheTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+              Object result = delegate(conn, method, args);
+              if (!(result instanceof PreparedStatement)) {
+                return result;
+              }
+              return Proxy.newProxyInstance(
+                      CacheTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                      (psProxy, psMethod, psArgs) -> {
+                        if (psMethod.getName().equals("executeQuery")) {
+                          invoke(cache, "invalidate", 1L);
+                        }
+                        return delegate(result, psMethod, psArgs);
+                      });
+            });
+    assertNotNull(invoke(cache, "findById", invalidating, 1L));
+    assertNull(invoke(cache, "getIfPresent", 1L));
+    assertEquals(1, ((Map<?, ?>) invoke(cache, "findByIds", invalidating,
+                                        Collections.singletonList(1L))).size());
+    assertNull(invoke(cache, "getIfPresent", 1L));
+
+    invoke(cache, "findById", conn, 1L);
+    assertNotNull(invoke(cache, "getIfPresent", 1L));
+  }
+
+  @Test
+  public void testDaoWritesInvalidate() throws Exception {
+    insert(2);
+    Object cache = classes.newInstance("UserAccountCache", dao);
+    invoke(cache, "findByIds", conn, Arrays.asList(1L, 2L));
+    assertEquals(2L, invoke(cache, "size"));
+
+    invoke(dao, "update", conn, changed(1L, "changed"));
+    assertNull(invoke(cache, "getIfPresent", 1L));
+    assertEquals("changed", get(invoke(cache, "findById", conn, 1L), "UserName"));
+
+    invoke(dao, "deleteByIds", conn, Collections.singletonList(2L));
+    assertNull(invoke(cache, "getIfPresent", 2L));
+    assertNull(invoke(cache, "findById", conn, 2L));
+  }
+
+  @Test
+  public void testUncommittedWriteIsNotCached() throws Exception {
+    insert(1);
+    Object cache = classes.newInstance("UserAccountCache", dao);
+    invoke(cache, "findById", conn, 1L);
+    try (Connection writer = DriverManager.getConnection(TestDatabase.url(DB), "sa", "")) {
+      writer.setAutoCommit(false);
+      invoke(cache, "update", writer, changed(1L, "changed"));
+      //提交之前读取到的旧值不缓存
+      assertEquals("u0", get(invoke(cache, "findById", conn, 1L), "UserName"));
+      assertNull(invoke(cache, "getIfPresent", 1L));
+      invoke(cache, "commit", writer);
+      assertEquals("changed", get(invoke(cache, "findById", conn, 1L), "UserName"));
+      assertNotNull(invoke(cache, "getIfPresent", 1L));
+
+      invoke(dao, "update", writer, changed(1L, "rolled back"));
+      assertNull(invoke(cache, "getIfPresent", 1L));
+      invoke(cache, "findById", conn, 1L);
+      assertNull(invoke(cache, "getIfPresent", 1L));
+      invoke(cache, "rollback", writer);
+      assertEquals("changed", get(invoke(cache, "findById", conn, 1L), "UserName"));
+      assertNotNull(invoke(cache, "getIfPresent", 1L));
+    }
+  }
+
+  private Object changed(long id, String name) throws Exception {
+    Object user = classes.newEntity("UserAccount");
+    set(user, "UserId", id);
+    set(user, "UserName", name);
+    return user;
+  }
+
+  private void insert(int count) throws Exception {
+    List<Object> users = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Object user = classes.newEntity("UserAccount");
+      set(user, "UserName", "u" + i);
+      users.add(user);
+    }
+    invoke(dao, "insertAll", conn, users);
+  }
+
+  private static int segments(Object cache) throws Exception {
+    Field field = cache.getClass().getDeclaredField("segments");
+    field.setAccessible(true);
+    return ((Object[]) field.get(cache)).length;
+  }
+
+  private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.get;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.set;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.edgar.jdbc.codegen.db.ParameterType;
+import com.edgar.jdbc.codegen.db.Table;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Types;
+import java.util.Date;
+
+/**
+ * 生成的Codec的单元测试.
+ */
+public class CodecTest {
+
+  private static GeneratedClasses classes;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    classes = GeneratedClasses.compile(new CodegenOptions().setGenerateCodec(true),
+                                       GeneratedClasses.userAccount());
+  }
+
+  @Test
+  public void testZigzagVarint() throws Exception {
+    long[] values = {0, -1, 1, 63, -64, 64, -65, 8191, -8192, 8192, Long.MAX_VALUE, Long.MIN_VALUE};
+    int[] lengths = {1, 1, 1, 1, 1, 2, 2, 2, 2, 3, 10, 10};
+    for (int i = 0; i < values.length; i++) {
+      Object entity = classes.newEntity("UserAccount");
+      set(entity, "UserId", values[i]);
+      set(entity, "UserName", "");
+      byte[] bytes = toBytes(entity);
+      //SCHEMA_HASH、1个字节的null位图、主键、长度为0的字符串
+      assertEquals("length of " + values[i], 4 + 1 + lengths[i] + 1, bytes.length);
+      assertEquals(values[i], get(fromBytes(bytes), "UserId"));
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Object entity = classes.newEntity("UserAccount");
+    set(entity, "UserId", 123456789L);
+    set(entity, "UserName", "h\u00e9llo \ud83d\ude00");
+    set(entity, "Age", -5);
+    set(entity, "Score", new BigDecimal("-12.345"));
+    set(entity, "Active", true);
+    set(entity, "CreatedOn", new Date(1600000000123L));
+    set(entity, "Avatar", new byte[]{1, 2, 3});
+    Object decoded = fromBytes(toBytes(entity));
+    assertEquals(123456789L, get(decoded, "UserId"));
+    assertEquals("h\u00e9llo \ud83d\ude00", get(decoded, "UserName"));
+    assertEquals(-5, get(decoded, "Age"));
+    assertEquals(new BigDecimal("-12.345"), get(decoded, "Score"));
+    assertEquals(true, get(decoded, "Active"));
+    assertEquals(new Date(1600000000123L), get(decoded, "CreatedOn"));
+    //OBJECT列没有编码方式，不编码
+    assertNull(get(decoded, "Avatar"));
+  }
+
+  @Test
+  public void testNullBitmap() throws Exception {
+    Object entity = classes.newEntity("UserAccount");
+    set(entity, "UserId", 1L);
+    set(entity, "UserName", "a");
+    set(entity, "Score", BigDecimal.ONE);
+    byte[] bytes = toBytes(entity);
+    //age、active、created_on是第3、5、6个字段
+    assertEquals((1 << 2) | (1 << 4) | (1 << 5), bytes[4]);
+    Object decoded = fromBytes(bytes);
+    assertNull(get(decoded, "Age"));
+    assertNull(get(decoded, "Active"));
+    assertNull(get(decoded, "CreatedOn"));
+    assertEquals(BigDecimal.ONE, get(decoded, "Score"));
+  }
+
+  @Test
+  public void testBuffer() throws Exception {
+    Object first = classes.newEntity("UserAccount");
+    set(first, "UserId", 7L);
+    set(first, "UserName", "x");
+    Object second = classes.newEntity("UserAccount");
+    ByteBuffer buf = ByteBuffer.allocateDirect(64);
+    classes.invokeStatic("UserAccountCodec", "encode", first, buf);
+    classes.invokeStatic("UserAccountCodec", "encode", second, buf);
+    buf.flip();
+    assertEquals("x", get(classes.invokeStatic("UserAccountCodec", "decode", buf), "UserName"));
+    assertNull(get(classes.invokeStatic("UserAccountCodec", "decode", buf), "UserId"));
+    assertEquals(0, buf.remaining());
+  }
+
+  @Test
+  public void testSchemaHash() throws Exception {
+    Table table = GeneratedClasses.userAccount();
+    byte[] bytes = toBytes(classes.newEntity("UserAccount"));
+    assertArrayEquals(ByteBuffer.allocate(4).putInt(table.getSchemaHash()).array(),
+                      new byte[]{bytes[0], bytes[1], bytes[2], bytes[3]});
+
+    Table changed = Table.create("user_account", null);
+    table.getColumns().forEach(changed::addColumn);
+    changed.getColumns().set(2, GeneratedClasses.column("age", Types.INTEGER,
+                                                        ParameterType.INTEGER, false, false));
+    assertNotEquals(table.getSchemaHash(), changed.getSchemaHash());
+
+    bytes[0]++;
+    try {
+      fromBytes(bytes);
+      fail("schema hash mismatch");
+    } catch (IllegalArgumentException e) {
+      assertEquals("schema hash mismatch, expected " + table.getSchemaHash() + " but was "
+                   + ByteBuffer.wrap(bytes).getInt(), e.getMessage());
+    }
+  }
+
+  private static byte[] toBytes(Object entity) throws Exception {
+    return (byte[]) classes.invokeStatic("UserAccountCodec", "toBytes", entity);
+  }
+
+  private static Object fromBytes(byte[] bytes) throws Exception {
+    try {
+      return classes.invokeStatic("UserAccountCodec", "fromBytes", (Object) bytes);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof IllegalArgumentException) {
+        throw (IllegalArgumentException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.get;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.invoke;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 生成的Dao在H2数据库上的单元测试.
+ */
+public class DaoTest {
+
+  private static final String DB = "dao";
+
+  private static final String DDL = "CREATE TABLE user_account ("
+                                    + "user_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                                    + "user_name VARCHAR(64) NOT NULL, age INT, "
+                                    + "created_on TIMESTAMP)";
+
+  private static final int IN_CHUNK_SIZE = 8;
+
+  private static GeneratedClasses classes;
+
+  private Connection conn;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    try (Connection conn = TestDatabase.open(DB, DDL)) {
+      classes = GeneratedClasses.compile(new CodegenOptions().setGenerateDao(true)
+                                                 .setDirtyTracking(true)
+                                                 .setDaoInChunkSize(IN_CHUNK_SIZE),
+                                         GeneratedClasses.fetch(DB, "user_account"));
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    conn = TestDatabase.open(DB, DDL);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  @Test
+  public void testInsertAll() throws Exception {
+    List<Object> users = users(7);
+    AtomicInteger batches = new AtomicInteger();
+    invoke(classes.newInstance("UserAccountDao", 3), "insertAll",
+           recording(conn, new ArrayList<>(), batches), users);
+    //3 + 3 + 1
+    assertEquals(3, batches.get());
+    for (int i = 0; i < users.size(); i++) {
+      Object user = users.get(i);
+      assertEquals(Long.valueOf(i + 1), get(user, "UserId"));
+      assertTrue(invoke(user, "dirtyFields").toString(),
+                 ((List<?>) invoke(user, "dirtyFields")).isEmpty());
+    }
+
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT user_id, user_name, age FROM user_account "
+                                          + "ORDER BY user_id")) {
+      for (int i = 0; i < users.size(); i++) {
+        assertTrue(rs.next());
+        assertEquals(i + 1, rs.getLong(1));
+        assertEquals("u" + i, rs.getString(2));
+        assertEquals(i, rs.getInt(3));
+        assertEquals(i == 0, rs.wasNull());
+      }
+      assertFalse(rs.next());
+    }
+  }
+
+  @Test
+  public void testInsertAllExactBatches() throws Exception {
+    AtomicInteger batches = new AtomicInteger();
+    invoke(classes.newInstance("UserAccountDao", 2), "insertAll",
+           recording(conn, new ArrayList<>(), batches), users(4));
+    assertEquals(2, batches.get());
+
+    invoke(classes.newInstance("UserAccountDao", 2), "insertAll",
+           recording(conn, new ArrayList<>(), batches), new ArrayList<>());
+    assertEquals(2, batches.get());
+    assertEquals(4, count());
+  }
+
+  @Test
+  public void testInsertAllReadBack() throws Exception {
+    List<Object> users = users(5);
+    invoke(classes.newEntity("UserAccountDao"), "insertAll", conn, users);
+    List<Long> ids = new ArrayList<>();
+    for (Object user : users) {
+      ids.add((Long) get(user, "UserId"));
+    }
+    Map<?, ?> found = (Map<?, ?>) invoke(classes.newEntity("UserAccountDao"), "findByIds",
+                                         conn, ids);
+    assertEquals(5, found.size());
+    for (Object user : users) {
+      Object read = found.get(get(user, "UserId"));
+      assertEquals(get(user, "UserName"), get(read, "UserName"));
+      assertEquals(get(user, "Age"), get(read, "Age"));
+    }
+  }
+
+  @Test
+  public void testFindByIdsPadsToPowerOfTwo() throws Exception {
+    insert(20);
+    List<String> prepared = new ArrayList<>();
+    Map<?, ?> found = findByIds(recording(conn, prepared, new AtomicInteger()),
+                                Arrays.asList(1L, 3L, 5L, 7L, 9L));
+    assertEquals(5, found.size());
+    for (long id : new long[]{1, 3, 5, 7, 9}) {
+      assertEquals("u" + (id - 1), get(found.get(id), "UserName"));
+    }
+    assertEquals(1, prepared.size());
+    assertEquals(8, parameters(prepared.get(0)));
+  }
+
+  @Test
+  public void testFindByIdsAboveChunkSize() throws Exception {
+    insert(20);
+    List<Long> ids = new ArrayList<>();
+    for (long id = 1; id <= 19; id++) {
+      ids.add(id);
+    }
+    List<String> prepared = new ArrayList<>();
+    Map<?, ?> found = findByIds(recording(conn, prepared, new AtomicInteger()), ids);
+    assertEquals(19, found.size());
+    assertFalse(found.containsKey(20L));
+    //8 + 8 + 3，相同大小的语句只准备一次
+    assertEquals(2, prepared.size());
+    assertEquals(8, parameters(prepared.get(0)));
+    assertEquals(4, parameters(prepared.get(1)));
+  }
+
+  @Test
+  public void testFindByIdsDuplicatesAndMissing() throws Exception {
+    insert(3);
+    List<String> prepared = new ArrayList<>();
+    Map<?, ?> found = findByIds(recording(conn, prepared, new AtomicInteger()),
+                                Arrays.asList(2L, 2L, 1L, 99L, 1L, 2L));
+    assertEquals(2, found.size());
+    assertEquals("u0", get(found.get(1L), "UserName"));
+    assertEquals("u1", get(found.get(2L), "UserName"));
+    //重复的主键只绑定一次
+    assertEquals(4, parameters(prepared.get(0)));
+  }
+
+  @Test
+  public void testEmptyIds() throws Exception {
+    insert(3);
+    List<String> prepared = new ArrayList<>();
+    Connection recording = recording(conn, prepared, new AtomicInteger());
+    assertTrue(findByIds(recording, Collections.emptyList()).isEmpty());
+    assertEquals(0, invoke(classes.newEntity("UserAccountDao"), "deleteByIds", recording,
+                           Collections.emptyList()));
+    assertTrue(prepared.isEmpty());
+    assertEquals(3, count());
+  }
+
+  @Test
+  public void testDeleteByIds() throws Exception {
+    insert(20);
+    List<Long> ids = new ArrayList<>();
+    for (long id = 1; id <= 11; id++) {
+      ids.add(id);
+      ids.add(id);
+    }
+    ids.add(99L);
+    List<String> prepared = new ArrayList<>();
+    assertEquals(11, invoke(classes.newEntity("UserAccountDao"), "deleteByIds",
+                            recording(conn, prepared, new AtomicInteger()), ids));
+    assertEquals(9, count());
+    assertEquals(2, prepared.size());
+    assertTrue(findByIds(conn, Arrays.asList(1L, 11L)).isEmpty());
+    assertEquals(1, findByIds(conn, Arrays.asList(11L, 12L)).size());
+  }
+
+  @Test
+  public void testUpdateWritesOnlyDirtyColumns() throws Exception {
+    insert(2);
+    Object user = findByIds(conn, Collections.singletonList(2L)).get(2L);
+    set(user, "Age", 40);
+    //读取之后其它连接修改的列不会被覆盖
+    execute("UPDATE user_account SET user_name = 'changed' WHERE user_id = 2");
+    List<String> prepared = new ArrayList<>();
+    assertEquals(1, invoke(classes.newEntity("UserAccountDao"), "update",
+                           recording(conn, prepared, new AtomicInteger()), user));
+    assertEquals(1, prepared.size());
+    assertTrue(prepared.get(0), prepared.get(0).contains("age"));
+    assertFalse(prepared.get(0), prepared.get(0).contains("user_name"));
+    assertEquals(2, parameters(prepared.get(0)));
+
+    Object loaded = findByIds(conn, Collections.singletonList(2L)).get(2L);
+    assertEquals(40, get(loaded, "Age"));
+    assertEquals("changed", get(loaded, "UserName"));
+    //其它行没有修改
+    assertNull(get(findByIds(conn, Collections.singletonList(1L)).get(1L), "Age"));
+  }
+
+  @Test
+  public void testUpdateNothingChanged() throws Exception {
+    insert(1);
+    Object user = findByIds(conn, Collections.singletonList(1L)).get(1L);
+    List<String> prepared = new ArrayList<>();
+    assertEquals(0, invoke(classes.newEntity("UserAccountDao"), "update",
+                           recording(conn, prepared, new AtomicInteger()), user));
+    assertTrue(prepared.isEmpty());
+  }
+
+  @Test
+  public void testUpdateClearsDirty() throws Exception {
+    insert(1);
+    Object user = findByIds(conn, Collections.singletonList(1L)).get(1L);
+    set(user, "UserName", "renamed");
+    set(user, "Age", null);
+    assertEquals(Arrays.asList("userName", "age"), invoke(user, "dirtyFields"));
+    Object dao = classes.newEntity("UserAccountDao");
+    assertEquals(1, invoke(dao, "update", conn, user));
+    assertEquals(Collections.emptyList(), invoke(user, "dirtyFields"));
+    Object loaded = findByIds(conn, Collections.singletonList(1L)).get(1L);
+    assertEquals("renamed", get(loaded, "UserName"));
+    assertNull(get(loaded, "Age"));
+
+    //已经写入的修改不会再次写入
+    List<String> prepared = new ArrayList<>();
+    assertEquals(0, invoke(dao, "update", recording(conn, prepared, new AtomicInteger()), user));
+    assertTrue(prepared.isEmpty());
+  }
+
+  @Test
+  public void testFailedUpdateKeepsDirty() throws Exception {
+    insert(1);
+    Object user = findByIds(conn, Collections.singletonList(1L)).get(1L);
+    set(user, "UserName", null);
+    try {
+      invoke(classes.newEntity("UserAccountDao"), "update", conn, user);
+      fail("NOT NULL column");
+    } catch (SQLException e) {
+      //没有写入的修改仍然需要写入
+      assertEquals(Collections.singletonList("userName"), invoke(user, "dirtyFields"));
+    }
+  }
+
+  private Map<?, ?> findByIds(Connection conn, List<Long> ids) throws Exception {
+    return (Map<?, ?>) invoke(classes.newEntity("UserAccountDao"), "findByIds", conn, ids);
+  }
+
+  private void insert(int count) throws Exception {
+    invoke(classes.newEntity("UserAccountDao"), "insertAll", conn, users(count));
+  }
+
+  private static int parameters(String sql) {
+    return sql.length() - sql.replace("?", "").length();
+  }
+
+  /**
+   * 第一个用户的age为null.
+   */
+  private List<Object> users(int count) throws Exception {
+    List<Object> users = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Object user = classes.newEntity("UserAccount");
+      set(user, "UserName", "u" + i);
+      set(user, "Age", i == 0 ? null : i);
+      users.add(user);
+    }
+    return users;
+  }
+
+  private void execute(String sql) throws Exception {
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute(sql);
+    }
+  }
+
+  private int count() throws Exception {
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM user_account")) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+
+  /**
+   * 记录准备的sql和executeBatch的调用次数.
+   */
+  private static Connection recording(Connection conn, List<String> prepared,
+                                      AtomicInteger batches) {
+    return (Connection) Proxy.newProxyInstance(
+            DaoTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+              Object result = delegate(conn, method, args);
+              if (!(result instanceof PreparedStatement)) {
+                return result;
+              }
+              prepared.add((String) args[0]);
+              PreparedStatement ps = (PreparedStatement) result;
+              return Proxy.newProxyInstance(
+                      DaoTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                      (psProxy, psMethod, psArgs) -> {
+                        if (psMethod.getName().equals("executeBatch")) {
+                          batches.incrementAndGet();
+                        }
+                        return delegate(ps, psMethod, psArgs);
+                      });
+            });
+  }
+
+  private static Object delegate(Object target, Method method, Object[] args)
+          throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
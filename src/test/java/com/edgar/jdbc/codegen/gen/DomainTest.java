@@ -0,0 +1,90 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.get;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.invoke;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * 使用基本类型字段生成的实体的单元测试.
+ */
+public class DomainTest {
+
+  private static GeneratedClasses classes;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    classes = GeneratedClasses.compile(new CodegenOptions().setPrimitiveFields(true),
+                                       GeneratedClasses.userAccount());
+  }
+
+  @Test
+  public void testUnsetNullableFieldsAreNull() throws Exception {
+    Object user = classes.newEntity("UserAccount");
+    assertNull(get(user, "Age"));
+    assertEquals(0, get(user, "AgeValue"));
+    assertNull(get(user, "Active"));
+    assertEquals(false, get(user, "ActiveValue"));
+
+    Map<?, ?> map = (Map<?, ?>) invoke(user, "toMap");
+    assertTrue(map.containsKey("age"));
+    assertNull(map.get("age"));
+    assertNull(map.get("active"));
+    //不能为null的基本类型字段
+    assertEquals(0L, map.get("userId"));
+  }
+
+  @Test
+  public void testPrimitiveSetter() throws Exception {
+    Object user = classes.newEntity("UserAccount");
+    assertEquals(0, user.getClass().getMethod("setAge", int.class).invoke(user, 0));
+    assertEquals(0, get(user, "Age"));
+    assertEquals(0, get(user, "AgeValue"));
+    user.getClass().getMethod("setActive", boolean.class).invoke(user, false);
+    assertEquals(false, get(user, "Active"));
+    assertEquals(0, ((Map<?, ?>) invoke(user, "toMap")).get("age"));
+    assertEquals(false, ((Map<?, ?>) invoke(user, "toMap")).get("active"));
+  }
+
+  @Test
+  public void testBoxedSetter() throws Exception {
+    Object user = classes.newEntity("UserAccount");
+    set(user, "Age", 42);
+    assertEquals(42, get(user, "Age"));
+    assertEquals(42, get(user, "AgeValue"));
+    set(user, "Age", null);
+    assertNull(get(user, "Age"));
+    assertNull(((Map<?, ?>) invoke(user, "toMap")).get("age"));
+
+    set(user, "Active", true);
+    set(user, "Age", 7);
+    assertEquals(true, get(user, "Active"));
+    assertEquals(7, get(user, "Age"));
+    set(user, "Active", null);
+    assertNull(get(user, "Active"));
+    assertEquals(7, get(user, "Age"));
+  }
+
+  @Test
+  public void testPrimitiveId() throws Exception {
+    Object user = classes.newEntity("UserAccount");
+    invoke(user, "setId", 5L);
+    assertEquals(5L, get(user, "UserId"));
+    assertEquals(5L, invoke(user, "id"));
+    try {
+      invoke(user, "setId", (Object) null);
+      fail("null id");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("user_id"));
+    }
+    assertEquals(5L, get(user, "UserId"));
+  }
+}
@@ -0,0 +1,218 @@
+package com.edgar.jdbc.codegen.gen;
+
+import com.edgar.jdbc.codegen.db.Column;
+import com.edgar.jdbc.codegen.db.DBFetcher;
+import com.edgar.jdbc.codegen.db.ParameterType;
+import com.edgar.jdbc.codegen.db.Table;
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import com.edgar.util.db.Persistent;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Primitives;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * 在测试中渲染并编译生成的代码，通过反射调用.
+ */
+class GeneratedClasses {
+
+  static final String PACKAGE = "com.edgar.test.domain";
+
+  private final ClassLoader classLoader;
+
+  private GeneratedClasses(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * 渲染并编译表的代码.
+   *
+   * @param options 生成的选项，domainPackage和srcFolderPath会被覆盖
+   * @param table   表
+   * @return GeneratedClasses
+   */
+  static GeneratedClasses compile(CodegenOptions options, Table table) throws Exception {
+    Path dir = Files.createTempDirectory("codegen-test");
+    Generator generator = new Generator(options.setDomainPackage(PACKAGE)
+                                                .setSrcFolderPath(dir.toString()));
+    List<String> args = new ArrayList<>();
+    args.add("-nowarn");
+    args.add("-d");
+    args.add(dir.toString());
+    args.add("-classpath");
+    args.add(location(Persistent.class) + File.pathSeparator + location(ImmutableList.class));
+    for (GeneratedFile generated : generator.render(table, "")) {
+      Path file = dir.resolve(new File(generated.getFileName()).getName());
+      Files.write(file, generated.getCode().getBytes(StandardCharsets.UTF_8));
+      args.add(file.toString());
+    }
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler.run(null, null, null, args.toArray(new String[args.size()])) != 0) {
+      throw new IllegalStateException("generated code of " + table.getName() + " does not compile");
+    }
+    return new GeneratedClasses(new URLClassLoader(new URL[]{dir.toUri().toURL()},
+                                                   GeneratedClasses.class.getClassLoader()));
+  }
+
+  /**
+   * 测试使用的表，包括主键、各种类型的可以为null的列以及没有编码方式的OBJECT列.
+   */
+  static Table userAccount() {
+    Table table = Table.create("user_account", null);
+    table.addColumn(column("user_id", Types.BIGINT, ParameterType.LONG, false, true));
+    table.addColumn(column("user_name", Types.VARCHAR, ParameterType.STRING, false, false));
+    table.addColumn(column("age", Types.INTEGER, ParameterType.INTEGER, true, false));
+    table.addColumn(column("score", Types.DECIMAL, ParameterType.BIGDECIMAL, true, false));
+    table.addColumn(column("active", Types.BIT, ParameterType.BOOLEAN, true, false));
+    table.addColumn(column("created_on", Types.TIMESTAMP, ParameterType.DATE, true, false));
+    table.addColumn(column("avatar", Types.BLOB, ParameterType.OBJECT, true, false));
+    return table;
+  }
+
+  /**
+   * 从H2测试数据库读取表的定义.
+   */
+  static Table fetch(String db, String tableName) {
+    return fetch(TestDatabase.options(db), tableName);
+  }
+
+  /**
+   * 使用指定的选项从测试数据库读取表的定义.
+   */
+  static Table fetch(CodegenOptions options, String tableName) {
+    return new DBFetcher(options).fetchTablesFromDb().stream()
+            .filter(t -> t.getName().equals(tableName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("no table " + tableName));
+  }
+
+  static Column column(String name, int type, ParameterType parameterType, boolean nullable,
+                       boolean primary) {
+    return Column.builder()
+            .setName(name)
+            .setType(type)
+            .setParameterType(parameterType)
+            .setNullable(nullable)
+            .setPrimary(primary)
+            .build();
+  }
+
+  Object newEntity(String className) throws Exception {
+    return load(className).newInstance();
+  }
+
+  /**
+   * 调用生成的类的构造函数，基本类型的参数使用包装类型传入.
+   */
+  Object newInstance(String className, Object... args) throws Exception {
+    for (Constructor<?> constructor : load(className).getConstructors()) {
+      if (accepts(wrap(constructor.getParameterTypes()), args)) {
+        return constructor.newInstance(args);
+      }
+    }
+    throw new IllegalArgumentException(className + " has no matching constructor");
+  }
+
+  /**
+   * 调用生成的类的静态方法.
+   */
+  Object invokeStatic(String className, String methodName, Object... args) throws Exception {
+    for (Method method : load(className).getMethods()) {
+      if (method.getName().equals(methodName) && accepts(method.getParameterTypes(), args)) {
+        return method.invoke(null, args);
+      }
+    }
+    throw new IllegalArgumentException(className + " has no method " + methodName);
+  }
+
+  /**
+   * 读取生成的类的静态字段.
+   */
+  Object getStatic(String className, String fieldName) throws Exception {
+    return load(className).getField(fieldName).get(null);
+  }
+
+  /**
+   * 调用生成的对象的方法，基本类型的参数使用包装类型传入，抛出方法本身的异常.
+   */
+  static Object invoke(Object target, String methodName, Object... args) throws Exception {
+    for (Method method : target.getClass().getMethods()) {
+      if (method.getName().equals(methodName) && accepts(wrap(method.getParameterTypes()), args)) {
+        try {
+          return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+          if (e.getCause() instanceof Exception) {
+            throw (Exception) e.getCause();
+          }
+          throw e;
+        }
+      }
+    }
+    throw new IllegalArgumentException(target.getClass().getName() + " has no method "
+                                       + methodName);
+  }
+
+  static Object get(Object entity, String property) throws Exception {
+    return find(entity.getClass(), "get" + property, 0).invoke(entity);
+  }
+
+  static void set(Object entity, String property, Object value) throws Exception {
+    find(entity.getClass(), "set" + property, 1).invoke(entity, value);
+  }
+
+  Class<?> load(String className) throws ClassNotFoundException {
+    return classLoader.loadClass(PACKAGE + "." + className);
+  }
+
+  //getter和setter只有基本类型的setter存在重载，按参数个数查找并且优先使用包装类型
+  private static Method find(Class<?> type, String name, int parameterCount) {
+    Method found = null;
+    for (Method method : type.getMethods()) {
+      if (method.getName().equals(name) && method.getParameterCount() == parameterCount
+          && (found == null || !method.getParameterTypes()[0].isPrimitive())) {
+        found = method;
+      }
+    }
+    if (found == null) {
+      throw new IllegalArgumentException(type.getName() + " has no method " + name);
+    }
+    return found;
+  }
+
+  private static boolean accepts(Class<?>[] types, Object[] args) {
+    if (types.length != args.length) {
+      return false;
+    }
+    for (int i = 0; i < types.length; i++) {
+      if (types[i].isPrimitive() || (args[i] != null && !types[i].isInstance(args[i]))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Class<?>[] wrap(Class<?>[] types) {
+    for (int i = 0; i < types.length; i++) {
+      types[i] = Primitives.wrap(types[i]);
+    }
+    return types;
+  }
+
+  private static String location(Class<?> type) throws URISyntaxException {
+    return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+  }
+}
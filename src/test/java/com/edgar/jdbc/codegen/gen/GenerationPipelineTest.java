@@ -0,0 +1,106 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.edgar.jdbc.codegen.db.Table;
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import com.google.common.base.Throwables;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GenerationPipeline的单元测试.
+ */
+public class GenerationPipelineTest {
+
+  @Test(timeout = 10000)
+  public void testBackpressure() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> written = new CopyOnWriteArrayList<>();
+    GenerationPipeline pipeline = new GenerationPipeline(1, 1, table -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      return Collections.singletonList(new GeneratedFile(table, table.getName(), ""));
+    }, file -> written.add(file.getFileName()));
+    pipeline.start();
+    AtomicInteger submitted = new AtomicInteger();
+    Thread producer = new Thread(() -> {
+      for (int i = 0; i < 5; i++) {
+        pipeline.submit(Table.create("t" + i, null));
+        submitted.incrementAndGet();
+      }
+    });
+    producer.start();
+    //一个表正在渲染，一个表在队列中，第三个表阻塞
+    while (producer.getState() != Thread.State.WAITING) {
+      Thread.sleep(10);
+    }
+    assertEquals(2, submitted.get());
+    release.countDown();
+    producer.join();
+    pipeline.finish();
+    assertEquals(5, written.size());
+  }
+
+  @Test(timeout = 10000)
+  public void testRenderFailure() throws Exception {
+    AtomicInteger rendered = new AtomicInteger();
+    GenerationPipeline pipeline = new GenerationPipeline(2, 2, table -> {
+      rendered.incrementAndGet();
+      throw new IllegalStateException("render failed");
+    }, file -> fail("nothing should be written"));
+    pipeline.start();
+    try {
+      for (int i = 0; i < 100; i++) {
+        pipeline.submit(Table.create("t" + i, null));
+      }
+      pipeline.finish();
+      fail("render failure");
+    } catch (IllegalStateException e) {
+      assertEquals("render failed", e.getMessage());
+    }
+    //出错后剩下的表不再渲染
+    assertTrue(rendered.get() < 100);
+  }
+
+  @Test(timeout = 30000)
+  public void testGenerateFailsWhenRenderFails() throws Exception {
+    Path dir = Files.createTempDirectory("codegen-pipeline");
+    try (Connection conn = TestDatabase.open("pipeline",
+                                             "CREATE TABLE a (id BIGINT PRIMARY KEY)",
+                                             "CREATE TABLE b (id BIGINT PRIMARY KEY)")) {
+      CodegenOptions options = TestDatabase.options("pipeline")
+              .setSrcFolderPath(dir.toString())
+              .setDomainPackage("com.edgar.test.domain")
+              .setPipelineWorkers(2)
+              .addListener(new CodegenListener() {
+                @Override
+                public void onFileRendered(String table, String file, long nanos) {
+                  throw new IllegalStateException("render failed: " + table);
+                }
+              });
+      try {
+        new Generator(options).generate();
+        fail("render failure");
+      } catch (RuntimeException e) {
+        Throwable cause = Throwables.getRootCause(e);
+        assertTrue(cause.toString(), cause instanceof IllegalStateException);
+        assertTrue(cause.getMessage().startsWith("render failed"));
+      }
+      assertEquals(1, TestDatabase.sessions(conn));
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * GenerationReport和CodegenListener的单元测试.
+ */
+public class GenerationReportTest {
+
+  @Test
+  public void testJsonShape() {
+    GenerationReport report = new GenerationReport();
+    report.onConnect(2000000);
+    report.onMetadataQuery("tables", 1000000);
+    report.onMetadataQuery("tables", 500000);
+    report.onMetadataQuery("columns", 250000);
+    report.onTableFetched("a", 1000000, 2000000, 3000000);
+    report.onFileRendered("a", "A.java", 1500000);
+    report.onFileWritten("a", "A.java", 100, 500000);
+    report.onFileRendered("a", "ARowMapper.java", 1000000);
+    report.onFileUnchanged("a", "ARowMapper.java", 250000);
+    report.onTableSkipped("b\"\n");
+    report.onFileDeleted("C.java");
+    report.onUnindexedFinder("a", Arrays.asList("name", "age"));
+    report.onFinish(report);
+
+    Map<?, ?> json = (Map<?, ?>) new JsonParser(report.toJson()).parse();
+    assertEquals(Arrays.asList("startedAt", "totalMillis", "connect", "metadataQueries", "render",
+                               "write", "unchanged", "bytesWritten", "filesWritten",
+                               "filesUnchanged", "filesDeleted", "tablesSkipped",
+                               "unindexedFinders", "tables"),
+                 new ArrayList<>(json.keySet()));
+    assertTimer(json.get("connect"), 1, 2.0);
+    Map<?, ?> queries = (Map<?, ?>) json.get("metadataQueries");
+    assertEquals(Arrays.asList("columns", "tables"), new ArrayList<>(queries.keySet()));
+    assertTimer(queries.get("tables"), 2, 1.5);
+    assertTimer(json.get("render"), 2, 2.5);
+    assertTimer(json.get("write"), 1, 0.5);
+    assertTimer(json.get("unchanged"), 1, 0.25);
+    assertEquals(100.0, json.get("bytesWritten"));
+    assertEquals(1.0, json.get("filesWritten"));
+    assertEquals(1.0, json.get("filesUnchanged"));
+    assertEquals(1.0, json.get("filesDeleted"));
+    assertEquals(1.0, json.get("tablesSkipped"));
+
+    List<?> finders = (List<?>) json.get("unindexedFinders");
+    assertEquals(1, finders.size());
+    Map<?, ?> finder = (Map<?, ?>) finders.get(0);
+    assertEquals("a", finder.get("table"));
+    assertEquals(Arrays.asList("name", "age"), finder.get("columns"));
+    assertEquals("FULL_SCAN", finder.get("access"));
+
+    List<?> tables = (List<?>) json.get("tables");
+    assertEquals(2, tables.size());
+    Map<?, ?> a = (Map<?, ?>) tables.get(0);
+    assertEquals("a", a.get("name"));
+    assertEquals(1.0, a.get("columnsMillis"));
+    assertEquals(2.0, a.get("keysMillis"));
+    assertEquals(3.0, a.get("indexesMillis"));
+    assertEquals(2.5, a.get("renderMillis"));
+    assertEquals(0.75, a.get("writeMillis"));
+    assertEquals(100.0, a.get("bytesWritten"));
+    assertEquals(1.0, a.get("filesWritten"));
+    assertEquals(1.0, a.get("filesUnchanged"));
+    assertEquals(false, a.get("skipped"));
+    Map<?, ?> b = (Map<?, ?>) tables.get(1);
+    assertEquals("b\"\n", b.get("name"));
+    assertEquals(true, b.get("skipped"));
+  }
+
+  @Test
+  public void testEmptyReport() {
+    Map<?, ?> json = (Map<?, ?>) new JsonParser(new GenerationReport().toJson()).parse();
+    assertEquals(Collections.emptyMap(), json.get("metadataQueries"));
+    assertEquals(Collections.emptyList(), json.get("unindexedFinders"));
+    assertEquals(Collections.emptyList(), json.get("tables"));
+  }
+
+  @Test
+  public void testListenerEvents() throws Exception {
+    Path dir = Files.createTempDirectory("codegen-report");
+    try (Connection conn = TestDatabase.open("report",
+                                             "CREATE TABLE a (id BIGINT PRIMARY KEY, "
+                                             + "name VARCHAR(20))",
+                                             "CREATE TABLE b (id BIGINT PRIMARY KEY)")) {
+      List<String> events = new CopyOnWriteArrayList<>();
+      List<GenerationReport> finished = new ArrayList<>();
+      Path reportFile = dir.resolve("report/report.json");
+      Generator generator = new Generator(TestDatabase.options("report")
+              .setSrcFolderPath(dir.toString())
+              .setDomainPackage(GeneratedClasses.PACKAGE)
+              .setGenerateRowMapper(true)
+              .setReportFile(reportFile.toString())
+              .addFinder("a", "name")
+              .addListener(new CodegenListener() {
+                @Override
+                public void onConnect(long nanos) {
+                  events.add("connect");
+                }
+
+                @Override
+                public void onTableFetched(String table, long columnsNanos, long keysNanos,
+                                           long indexesNanos) {
+                  events.add("fetched " + table);
+                }
+
+                @Override
+                public void onFileRendered(String table, String file, long nanos) {
+                  events.add("rendered " + table);
+                }
+
+                @Override
+                public void onFileWritten(String table, String file, long bytes, long nanos) {
+                  assertTrue(bytes > 0);
+                  events.add("written " + table);
+                }
+
+                @Override
+                public void onUnindexedFinder(String table, List<String> columns) {
+                  events.add("unindexed " + table + columns);
+                }
+
+                @Override
+                public void onFinish(GenerationReport report) {
+                  events.add("finish");
+                  finished.add(report);
+                }
+              }));
+      generator.generate();
+
+      assertEquals("connect", events.get(0));
+      assertEquals("finish", events.get(events.size() - 1));
+      assertEquals(1, count(events, "fetched a"));
+      assertEquals(1, count(events, "fetched b"));
+      assertEquals(2, count(events, "rendered a"));
+      assertEquals(2, count(events, "written b"));
+      assertEquals(1, count(events, "unindexed a[name]"));
+      assertTrue(events.indexOf("fetched a") < events.indexOf("written a"));
+      assertSame(generator.getReport(), finished.get(0));
+      assertEquals(4, generator.getReport().getFilesWritten());
+      assertEquals(1, generator.getReport().getUnindexedFinders());
+
+      Map<?, ?> json = (Map<?, ?>) new JsonParser(
+              new String(Files.readAllBytes(reportFile), "UTF-8")).parse();
+      assertEquals(4.0, json.get("filesWritten"));
+      assertEquals(2, ((List<?>) json.get("tables")).size());
+    }
+  }
+
+  private static int count(List<String> events, String event) {
+    return Collections.frequency(events, event);
+  }
+
+  private static void assertTimer(Object timer, int count, double totalMillis) {
+    Map<?, ?> map = (Map<?, ?>) timer;
+    assertEquals(Arrays.asList("count", "totalMillis"), new ArrayList<>(map.keySet()));
+    assertEquals((double) count, map.get("count"));
+    assertEquals(totalMillis, map.get("totalMillis"));
+  }
+
+  /**
+   * 测试使用的JSON解析，数字解析为Double，对象保持字段的顺序.
+   */
+  private static class JsonParser {
+    private final String json;
+
+    private int pos;
+
+    private JsonParser(String json) {
+      this.json = json;
+    }
+
+    Object parse() {
+      Object value = value();
+      skipWhitespace();
+      assertEquals("trailing content", json.length(), pos);
+      return value;
+    }
+
+    private Object value() {
+      skipWhitespace();
+      char c = json.charAt(pos);
+      if (c == '{') {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipWhitespace();
+        if (json.charAt(pos) == '}') {
+          pos++;
+          return map;
+        }
+        do {
+          skipWhitespace();
+          String key = string();
+          skipWhitespace();
+          expect(':');
+          map.put(key, value());
+          skipWhitespace();
+        } while (next() == ',');
+        assertEquals('}', json.charAt(pos - 1));
+        return map;
+      }
+      if (c == '[') {
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipWhitespace();
+        if (json.charAt(pos) == ']') {
+          pos++;
+          return list;
+        }
+        do {
+          list.add(value());
+          skipWhitespace();
+        } while (next() == ',');
+        assertEquals(']', json.charAt(pos - 1));
+        return list;
+      }
+      if (c == '"') {
+        return string();
+      }
+      if (json.startsWith("true", pos) || json.startsWith("false", pos)) {
+        boolean value = json.startsWith("true", pos);
+        pos += value ? 4 : 5;
+        return value;
+      }
+      int start = pos;
+      while (pos < json.length() && "+-.0123456789eE".indexOf(json.charAt(pos)) != -1) {
+        pos++;
+      }
+      return Double.valueOf(json.substring(start, pos));
+    }
+
+    private String string() {
+      expect('"');
+      StringBuilder value = new StringBuilder();
+      for (char c = next(); c != '"'; c = next()) {
+        if (c == '\\') {
+          c = next();
+          if (c == 'u') {
+            c = (char) Integer.parseInt(json.substring(pos, pos + 4), 16);
+            pos += 4;
+          }
+        }
+        value.append(c);
+      }
+      return value.toString();
+    }
+
+    private void expect(char c) {
+      assertEquals("at " + pos, c, next());
+    }
+
+    private char next() {
+      return json.charAt(pos++);
+    }
+
+    private void skipWhitespace() {
+      while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+        pos++;
+      }
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.edgar.jdbc.codegen.db.Index;
+import com.edgar.jdbc.codegen.db.Table;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+/**
+ * GenerationState的单元测试.
+ */
+public class GenerationStateTest {
+
+  @Test
+  public void testFingerprint() {
+    String fingerprint = GenerationState.fingerprint(GeneratedClasses.userAccount(), "salt");
+    assertEquals(fingerprint,
+                 GenerationState.fingerprint(GeneratedClasses.userAccount(), "salt"));
+    assertNotEquals(fingerprint,
+                    GenerationState.fingerprint(GeneratedClasses.userAccount(), "other"));
+
+    Table nullable = GeneratedClasses.userAccount();
+    nullable.getColumns().set(1, GeneratedClasses.column("user_name", 12,
+                                                         nullable.getColumns().get(1)
+                                                                 .getParameterType(),
+                                                         true, false));
+    assertNotEquals(fingerprint, GenerationState.fingerprint(nullable, "salt"));
+
+    Table indexed = GeneratedClasses.userAccount();
+    Index index = Index.create("idx_age", false);
+    index.addColumn("age");
+    indexed.addIndex(index);
+    assertNotEquals(fingerprint, GenerationState.fingerprint(indexed, "salt"));
+
+    Table quoted = GeneratedClasses.userAccount();
+    quoted.setIdentifierQuote("\"");
+    assertNotEquals(fingerprint, GenerationState.fingerprint(quoted, "salt"));
+  }
+
+  @Test
+  public void testChangeDetection() throws Exception {
+    Path file = Files.createTempDirectory("codegen-state").resolve("state");
+    GenerationState state = GenerationState.load(file);
+    assertTrue(state.update("a", "1"));
+    assertTrue(state.update("b", "2"));
+    assertTrue(state.update("c", "3"));
+    assertTrue(state.droppedTables().isEmpty());
+    state.save();
+
+    state = GenerationState.load(file);
+    assertFalse(state.update("a", "1"));
+    assertTrue(state.update("b", "changed"));
+    assertEquals(Collections.singleton("c"), state.droppedTables());
+    state.save();
+
+    state = GenerationState.load(file);
+    assertFalse(state.update("a", "1"));
+    assertFalse(state.update("b", "changed"));
+    //上次保存时c已经删除
+    assertTrue(state.update("c", "3"));
+  }
+}
@@ -0,0 +1,176 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generator读取H2数据库生成代码的单元测试.
+ */
+public class GeneratorTest {
+
+  private static final String DB = "generator";
+
+  private Connection conn;
+
+  private Path dir;
+
+  @Before
+  public void setUp() throws Exception {
+    conn = TestDatabase.open(DB,
+                             "CREATE TABLE author (author_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                             + "name VARCHAR(64) NOT NULL, email VARCHAR(64))",
+                             "CREATE TABLE book (book_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                             + "author_id BIGINT NOT NULL, title VARCHAR(64))");
+    dir = Files.createTempDirectory("codegen-generator");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  @Test
+  public void testIncrementalSkipsUnchangedTables() throws Exception {
+    Generator generator = new Generator(options().setIncremental(true));
+    generator.generate();
+    assertEquals(0, generator.getReport().getTablesSkipped());
+
+    generator = new Generator(options().setIncremental(true));
+    generator.generate();
+    assertEquals(2, generator.getReport().getTablesSkipped());
+    assertEquals(0, generator.getWrittenFiles());
+  }
+
+  @Test
+  public void testIncrementalRegeneratesChangedTable() throws Exception {
+    new Generator(options().setIncremental(true)).generate();
+    execute("ALTER TABLE author ADD COLUMN age INT");
+
+    Generator generator = new Generator(options().setIncremental(true));
+    generator.generate();
+    assertEquals(1, generator.getReport().getTablesSkipped());
+    assertTrue(read("Author.java").contains("private Integer age;"));
+  }
+
+  @Test
+  public void testIncrementalRegeneratesOnOptionChange() throws Exception {
+    new Generator(options().setIncremental(true)).generate();
+
+    //声明的finder只影响对应的表
+    Generator generator = new Generator(options().setIncremental(true)
+                                                .addFinder("book", "title"));
+    generator.generate();
+    assertEquals(1, generator.getReport().getTablesSkipped());
+
+    //全局的配置影响所有的表
+    generator = new Generator(options().setIncremental(true)
+                                      .addFinder("book", "title")
+                                      .setPrimitiveFields(true));
+    generator.generate();
+    assertEquals(0, generator.getReport().getTablesSkipped());
+  }
+
+  @Test
+  public void testDeleteDroppedTables() throws Exception {
+    new Generator(options().setIncremental(true).setDeleteDroppedTables(true)
+                          .setGenerateRowMapper(true)).generate();
+    assertTrue(Files.exists(file("Book.java")));
+    assertTrue(Files.exists(file("BookRowMapper.java")));
+    execute("DROP TABLE book");
+
+    Generator generator = new Generator(options().setIncremental(true)
+                                                .setDeleteDroppedTables(true)
+                                                .setGenerateRowMapper(true));
+    generator.generate();
+    assertEquals(2, generator.getDeletedFiles());
+    assertFalse(Files.exists(file("Book.java")));
+    assertFalse(Files.exists(file("BookRowMapper.java")));
+    assertTrue(Files.exists(file("Author.java")));
+  }
+
+  @Test
+  public void testKeepDroppedTablesByDefault() throws Exception {
+    new Generator(options().setIncremental(true)).generate();
+    execute("DROP TABLE book");
+
+    Generator generator = new Generator(options().setIncremental(true));
+    generator.generate();
+    assertEquals(0, generator.getDeletedFiles());
+    assertTrue(Files.exists(file("Book.java")));
+  }
+
+  @Test
+  public void testUnchangedFilesAreNotRewritten() throws Exception {
+    Generator generator = new Generator(options().setGenerateRowMapper(true));
+    generator.generate();
+    assertEquals(4, generator.getWrittenFiles());
+    FileTime old = FileTime.fromMillis(1000000000000L);
+    for (String name : new String[]{"Author.java", "AuthorRowMapper.java", "Book.java"}) {
+      Files.setLastModifiedTime(file(name), old);
+    }
+    execute("ALTER TABLE book ADD COLUMN isbn VARCHAR(13)");
+
+    List<String> written = new ArrayList<>();
+    generator = new Generator(options().setGenerateRowMapper(true).addListener(
+            new CodegenListener() {
+              @Override
+              public void onFileWritten(String table, String file, long bytes, long nanos) {
+                written.add(file);
+              }
+            }));
+    generator.generate();
+    assertEquals(written.toString(), 2, generator.getWrittenFiles());
+    assertEquals(2, generator.getUnchangedFiles());
+    assertEquals(2, generator.getReport().getFilesUnchanged());
+    assertEquals(old, Files.getLastModifiedTime(file("Author.java")));
+    assertEquals(old, Files.getLastModifiedTime(file("AuthorRowMapper.java")));
+    assertFalse(old.equals(Files.getLastModifiedTime(file("Book.java"))));
+    assertTrue(read("Book.java").contains("private String isbn;"));
+  }
+
+  @Test
+  public void testUserSourceIsNotRewritten() throws Exception {
+    new Generator(options()).generate();
+    String code = read("Author.java").replace("\t/* END", "\tint custom;\n\t/* END");
+    Files.write(file("Author.java"), code.getBytes("UTF-8"));
+
+    Generator generator = new Generator(options());
+    generator.generate();
+    assertEquals(2, generator.getUnchangedFiles());
+    assertEquals(code, read("Author.java"));
+  }
+
+  private CodegenOptions options() {
+    return TestDatabase.options(DB)
+            .setSrcFolderPath(dir.toString())
+            .setDomainPackage(GeneratedClasses.PACKAGE);
+  }
+
+  private Path file(String name) {
+    return dir.resolve(GeneratedClasses.PACKAGE.replace('.', '/')).resolve(name);
+  }
+
+  private String read(String name) throws Exception {
+    return new String(Files.readAllBytes(file(name)), "UTF-8");
+  }
+
+  private void execute(String sql) throws Exception {
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute(sql);
+    }
+  }
+}
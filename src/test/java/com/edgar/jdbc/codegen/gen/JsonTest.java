@@ -0,0 +1,149 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.get;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 生成的Json的单元测试.
+ */
+public class JsonTest {
+
+  private static GeneratedClasses classes;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    classes = GeneratedClasses.compile(new CodegenOptions().setGenerateJson(true),
+                                       GeneratedClasses.userAccount());
+  }
+
+  @Test
+  public void testWriteEscapes() throws Exception {
+    Object entity = classes.newEntity("UserAccount");
+    set(entity, "UserId", 7L);
+    set(entity, "UserName", "a\"b\\c\n\t\u0001/");
+    assertEquals("{\"userId\":7,\"userName\":\"a\\\"b\\\\c\\n\\t\\u0001/\",\"age\":null,"
+                 + "\"score\":null,\"active\":null,\"createdOn\":null}", toJson(entity));
+  }
+
+  @Test
+  public void testReadEscapes() throws Exception {
+    Object entity = fromJson("{\"userName\":\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u0041\\u00e9\"}");
+    assertEquals("\"\\/\b\f\n\r\tA\u00e9", get(entity, "UserName"));
+  }
+
+  @Test
+  public void testSurrogates() throws Exception {
+    //转义的代理对读取为一个字符
+    assertEquals("\ud83d\ude00", get(fromJson("{\"userName\":\"\\ud83d\\ude00\"}"), "UserName"));
+
+    Object entity = classes.newEntity("UserAccount");
+    set(entity, "UserName", "\u00e9\u4e2d\ud83d\ude00");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    classes.invokeStatic("UserAccountJson", "write", entity, out);
+    byte[] bytes = out.toByteArray();
+    assertEquals(toJson(entity), new String(bytes, StandardCharsets.UTF_8));
+    Object read = classes.invokeStatic("UserAccountJson", "read", new ByteArrayInputStream(bytes));
+    assertEquals("\u00e9\u4e2d\ud83d\ude00", get(read, "UserName"));
+
+    //单独的代理字符不能编码为UTF-8
+    set(entity, "UserName", "a\ud83db");
+    out.reset();
+    classes.invokeStatic("UserAccountJson", "write", entity, out);
+    assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains("\"a?b\""));
+  }
+
+  @Test
+  public void testUnknownKeys() throws Exception {
+    Object entity = fromJson(" { \"extra\" : [1, {\"x\": null, \"y\": [\"}\"]}, true, -1.5e3],"
+                             + " \"userId\": 9 , \"nested\": {}, \"userName\":\"n\" } ");
+    assertEquals(9L, get(entity, "UserId"));
+    assertEquals("n", get(entity, "UserName"));
+  }
+
+  @Test
+  public void testNulls() throws Exception {
+    Object entity = fromJson("{\"userId\":1,\"userName\":null,\"age\":null,\"score\":null,"
+                             + "\"active\":null,\"createdOn\":null,\"avatar\":null}");
+    assertEquals(1L, get(entity, "UserId"));
+    assertNull(get(entity, "UserName"));
+    assertNull(get(entity, "Age"));
+    assertNull(get(entity, "Score"));
+    assertNull(get(entity, "Active"));
+    assertNull(get(entity, "CreatedOn"));
+    assertNull(get(entity, "Avatar"));
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Object entity = classes.newEntity("UserAccount");
+    set(entity, "UserId", -3L);
+    set(entity, "UserName", "x");
+    set(entity, "Age", 42);
+    set(entity, "Score", new BigDecimal("1.50"));
+    set(entity, "Active", false);
+    set(entity, "CreatedOn", new Date(1600000000123L));
+    //OBJECT列没有JSON形式，不写入
+    set(entity, "Avatar", new byte[]{1});
+    String json = toJson(entity);
+    Object read = fromJson(json);
+    assertEquals(-3L, get(read, "UserId"));
+    assertEquals(42, get(read, "Age"));
+    assertEquals(new BigDecimal("1.50"), get(read, "Score"));
+    assertEquals(false, get(read, "Active"));
+    assertEquals(new Date(1600000000123L), get(read, "CreatedOn"));
+    assertNull(get(read, "Avatar"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    classes.invokeStatic("UserAccountJson", "writeArray",
+                         Arrays.asList(entity, classes.newEntity("UserAccount")), out);
+    List<?> entities = (List<?>) classes.invokeStatic("UserAccountJson", "readArray",
+                                                      new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(2, entities.size());
+    assertEquals("x", get(entities.get(0), "UserName"));
+    assertNull(get(entities.get(1), "UserName"));
+  }
+
+  @Test
+  public void testMalformed() throws Exception {
+    for (String json : new String[]{"{\"userId\": }", "{\"userName\":\"a", "{\"userName\":\"\\x\"}",
+            "{\"userName\":\"\\u00g0\"}", "[]"}) {
+      try {
+        fromJson(json);
+        fail(json);
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("Malformed JSON"));
+      }
+    }
+  }
+
+  private static String toJson(Object entity) throws Exception {
+    return (String) classes.invokeStatic("UserAccountJson", "toJson", entity);
+  }
+
+  private static Object fromJson(String json) throws Exception {
+    try {
+      return classes.invokeStatic("UserAccountJson", "fromJson", json);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof IllegalArgumentException) {
+        throw (IllegalArgumentException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.get;
+import static com.edgar.jdbc.codegen.gen.GeneratedClasses.invoke;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.edgar.jdbc.codegen.db.ParameterType;
+import com.edgar.jdbc.codegen.db.TestDatabase;
+import com.edgar.jdbc.codegen.db.TypeMapping;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 生成的RowMapper在H2数据库上的单元测试，按序号读取并且用wasNull区分null和0.
+ */
+public class RowMapperTest {
+
+  private static final String DB = "rowmapper";
+
+  private static final String DDL = "CREATE TABLE item ("
+                                    + "item_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                                    + "name VARCHAR(20) NOT NULL, stock INT NOT NULL, qty INT, "
+                                    + "small SMALLINT, tiny TINYINT, price DOUBLE, ratio REAL, "
+                                    + "amount DECIMAL(10, 2), total DECIMAL(12, 0), active BOOLEAN, "
+                                    + "created_on TIMESTAMP, birthday DATE, grade VARCHAR(1), "
+                                    + "payload VARBINARY(16))";
+
+  private static GeneratedClasses boxed;
+
+  private static GeneratedClasses primitive;
+
+  private static GeneratedClasses precise;
+
+  private Connection conn;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    try (Connection conn = TestDatabase.open(DB, DDL)) {
+      boxed = GeneratedClasses.compile(new CodegenOptions().setGenerateRowMapper(true),
+                                       GeneratedClasses.fetch(DB, "item"));
+      primitive = GeneratedClasses.compile(new CodegenOptions().setGenerateRowMapper(true)
+                                                   .setPrimitiveFields(true)
+                                                   .setDirtyTracking(true),
+                                           GeneratedClasses.fetch(DB, "item"));
+      TypeMapping mapping = TypeMapping.precise().override("item", "grade", ParameterType.CHAR);
+      precise = GeneratedClasses.compile(new CodegenOptions().setGenerateRowMapper(true),
+                                         GeneratedClasses.fetch(TestDatabase.options(DB)
+                                                                        .setTypeMapping(mapping),
+                                                                "item"));
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    conn = TestDatabase.open(DB, DDL,
+                             "INSERT INTO item (name, stock, qty, small, tiny, price, ratio, amount, "
+                             + "total, active, created_on, birthday, grade, payload) VALUES ('a', 5, "
+                             + "0, 2, 3, 1.5, 2.5, 12.34, 0, FALSE, '2020-01-02 03:04:05', "
+                             + "'2020-01-02', 'x', X'0102')",
+                             "INSERT INTO item (name, stock, grade) VALUES ('b', 0, '')");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  @Test
+  public void testBoxed() throws Exception {
+    List<?> items = mapAll(boxed);
+    assertEquals(2, items.size());
+    Object item = items.get(0);
+    assertEquals(1L, get(item, "ItemId"));
+    assertEquals("a", get(item, "Name"));
+    assertEquals(5, get(item, "Stock"));
+    assertEquals(0, get(item, "Qty"));
+    assertEquals(2, get(item, "Small"));
+    assertEquals(3, get(item, "Tiny"));
+    assertEquals(0, new BigDecimal("1.5").compareTo((BigDecimal) get(item, "Price")));
+    assertEquals(2.5f, get(item, "Ratio"));
+    assertEquals(new BigDecimal("12.34"), get(item, "Amount"));
+    assertEquals(0, BigDecimal.ZERO.compareTo((BigDecimal) get(item, "Total")));
+    assertEquals(false, get(item, "Active"));
+    assertEquals(Timestamp.valueOf("2020-01-02 03:04:05"), get(item, "CreatedOn"));
+    assertEquals(Timestamp.valueOf("2020-01-02 00:00:00"), get(item, "Birthday"));
+    assertEquals("x", get(item, "Grade"));
+    assertArrayEquals(new byte[]{1, 2}, (byte[]) get(item, "Payload"));
+
+    item = items.get(1);
+    assertEquals("b", get(item, "Name"));
+    assertEquals(0, get(item, "Stock"));
+    assertNulls(item);
+    assertEquals("", get(item, "Grade"));
+  }
+
+  @Test
+  public void testPrimitive() throws Exception {
+    List<?> items = mapAll(primitive);
+    Object item = items.get(0);
+    assertEquals(5, get(item, "Stock"));
+    //0不是null
+    assertEquals(0, get(item, "Qty"));
+    assertEquals(0, get(item, "QtyValue"));
+    assertEquals(false, get(item, "Active"));
+    assertEquals(false, get(item, "ActiveValue"));
+    assertEquals(2, get(item, "Small"));
+    //读取后没有修改过的字段
+    assertEquals(Collections.emptyList(), invoke(item, "dirtyFields"));
+
+    item = items.get(1);
+    assertEquals(0, get(item, "Stock"));
+    assertNulls(item);
+    assertEquals(0, get(item, "QtyValue"));
+    assertEquals(false, get(item, "ActiveValue"));
+    assertEquals(Collections.emptyList(), invoke(item, "dirtyFields"));
+  }
+
+  @Test
+  public void testPrecise() throws Exception {
+    List<?> items = mapAll(precise);
+    Object item = items.get(0);
+    assertEquals(1L, get(item, "ItemId"));
+    assertEquals(0, get(item, "Qty"));
+    assertEquals((short) 2, get(item, "Small"));
+    assertEquals((byte) 3, get(item, "Tiny"));
+    assertEquals(1.5d, get(item, "Price"));
+    assertEquals(2.5f, get(item, "Ratio"));
+    assertEquals(new BigDecimal("12.34"), get(item, "Amount"));
+    assertEquals(0L, get(item, "Total"));
+    assertEquals(false, get(item, "Active"));
+    assertEquals(Timestamp.valueOf("2020-01-02 03:04:05").toInstant(), get(item, "CreatedOn"));
+    assertEquals(LocalDate.of(2020, 1, 2), get(item, "Birthday"));
+    assertEquals('x', get(item, "Grade"));
+    assertArrayEquals(new byte[]{1, 2}, (byte[]) get(item, "Payload"));
+
+    item = items.get(1);
+    assertNulls(item);
+    //空字符串没有可以转换的字符
+    assertNull(get(item, "Grade"));
+  }
+
+  private List<?> mapAll(GeneratedClasses classes) throws Exception {
+    String sql = "SELECT " + classes.getStatic("ItemRowMapper", "COLUMNS")
+                 + " FROM item ORDER BY item_id";
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery(sql)) {
+      return (List<?>) classes.invokeStatic("ItemRowMapper", "mapAll", rs);
+    }
+  }
+
+  private static void assertNulls(Object item) throws Exception {
+    for (String property : new String[]{"Qty", "Small", "Tiny", "Price", "Ratio", "Amount",
+                                        "Total", "Active", "CreatedOn", "Birthday", "Payload"}) {
+      assertNull(property, get(item, property));
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.edgar.jdbc.codegen.gen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * UserSource的单元测试.
+ */
+public class UserSourceTest {
+
+  private static final String START = "/* START";
+
+  private static final String END = "/* END";
+
+  @Test
+  public void testMultipleBlocks() {
+    String contents = "package a;\n"
+                      + "public class A {\n"
+                      + "  /* START first */\n"
+                      + "  int a;\n"
+                      + "  /* END first */\n"
+                      + "  int generated;\n"
+                      + "  /* START second */ int b; /* END second */\n"
+                      + "}\n";
+    UserSource source = UserSource.scan(contents, START, END);
+    assertEquals(Arrays.asList("/* START first */\n  int a;\n  ",
+                               "/* START second */ int b; "),
+                 source.getBlocks());
+  }
+
+  @Test
+  public void testImports() {
+    String contents = "package a;\n"
+                      + "import java.util.List;\n"
+                      + "import static java.util.Collections.emptyList ;\n"
+                      + "import java.util.List;\n"
+                      + "public class A {\n"
+                      + "  /* START\n"
+                      + "import java.util.Map;\n"
+                      + "  /* END */\n"
+                      + "}\n";
+    UserSource source = UserSource.scan(contents, START, END);
+    assertEquals(Arrays.asList("java.util.List", "static java.util.Collections.emptyList"),
+                 new ArrayList<>(source.getImports()));
+    assertEquals(1, source.getBlocks().size());
+  }
+
+  @Test
+  public void testMissingEnd() {
+    String contents = "public class A {\n"
+                      + "  /* START kept */ int a; /* END */\n"
+                      + "  /* START never closed\n"
+                      + "  int b;\n"
+                      + "}";
+    UserSource source = UserSource.scan(contents, START, END);
+    assertEquals(Arrays.asList("/* START kept */ int a; "), source.getBlocks());
+  }
+
+  @Test
+  public void testNoBlocks() {
+    UserSource source = UserSource.scan("public class A {\n}", START, END);
+    assertTrue(source.getBlocks().isEmpty());
+    assertTrue(source.getImports().isEmpty());
+  }
+}
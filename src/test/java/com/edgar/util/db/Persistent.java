@@ -0,0 +1,21 @@
+package com.edgar.util.db;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成的实体实现的接口，测试中编译生成的代码时使用.
+ */
+public interface Persistent<ID> extends Serializable {
+
+  List<String> fields();
+
+  String primaryField();
+
+  ID id();
+
+  void setId(ID id);
+
+  Map<String, Object> toMap();
+}